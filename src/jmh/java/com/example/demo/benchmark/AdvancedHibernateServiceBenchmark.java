@@ -0,0 +1,66 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.Role;
+import com.example.demo.entity.User;
+import com.example.demo.service.AdvancedHibernateService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdvancedHibernateService 查询与批处理基准
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdvancedHibernateServiceBenchmark {
+
+    @Param("100")
+    public int batchSize;
+
+    @Benchmark
+    public List<User> findUsersByCriteria(BenchmarkContext ctx) {
+        String prefix = "seed_" + ThreadLocalRandom.current().nextInt(10);
+        return ctx.bean(AdvancedHibernateService.class).findUsersByCriteria(prefix, null, User.UserStatus.ACTIVE);
+    }
+
+    @Benchmark
+    public Page<User> findUsersWithSpecification(BenchmarkContext ctx) {
+        int page = ThreadLocalRandom.current().nextInt(Math.max(1, ctx.userCount / 20));
+        return ctx.bean(AdvancedHibernateService.class)
+                .findUsersWithSpecification(null, "bench", null, PageRequest.of(page, 20));
+    }
+
+    @Benchmark
+    public List<Role> getUserRoles(BenchmarkContext ctx) {
+        Long userId = ThreadLocalRandom.current().nextLong(1, ctx.userCount + 1);
+        return ctx.bean(AdvancedHibernateService.class).getUserRoles(userId);
+    }
+
+    @Benchmark
+    public int batchCreateUsers(BenchmarkContext ctx) {
+        List<User> users = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            users.add(ctx.newUser("batch"));
+        }
+        ctx.bean(AdvancedHibernateService.class).batchCreateUsers(users);
+        return users.size();
+    }
+}
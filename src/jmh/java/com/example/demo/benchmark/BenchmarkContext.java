@@ -0,0 +1,103 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.entity.User;
+import com.example.demo.service.AdvancedHibernateService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基准测试共享状态
+ * 每个fork启动一次Spring上下文，使用独立的H2内存库并预置 userCount 个用户
+ */
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+    @Param("10000")
+    public int userCount;
+
+    public ConfigurableApplicationContext context;
+
+    /**
+     * 写入类基准用来生成唯一用户名
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() {
+        SpringApplication application = new SpringApplication(DemoApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        // 以命令行参数传入：默认属性的优先级低于 application.yml，会被其中的 show-sql 和日志级别覆盖
+        context = application.run(
+                "--db.first.url=jdbc:h2:mem:benchmark;MODE=MYSQL;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--app.hibernate.show-sql=false",
+                "--app.hibernate.format-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.example.demo=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.orm.jdbc.bind=WARN");
+        seed(context.getBean(AdvancedHibernateService.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public User newUser(String prefix) {
+        long n = sequence.incrementAndGet();
+        User user = new User();
+        user.setUsername(prefix + "_" + n + "_" + System.nanoTime());
+        user.setEmail(user.getUsername() + "@bench.example.com");
+        user.setPassword("password");
+        user.setFullName("Bench User " + n);
+        user.setStatus(User.UserStatus.ACTIVE);
+        return user;
+    }
+
+    /**
+     * 用户名为 seed_{i}，邮箱为 seed_{i}@bench.example.com
+     */
+    public static String seedUsername(int i) {
+        return "seed_" + i;
+    }
+
+    private void seed(AdvancedHibernateService service) {
+        List<User> batch = new ArrayList<>(1000);
+        User.UserStatus[] statuses = User.UserStatus.values();
+        for (int i = 0; i < userCount; i++) {
+            User user = new User();
+            user.setUsername(seedUsername(i));
+            user.setEmail(seedUsername(i) + "@bench.example.com");
+            user.setPassword("password");
+            user.setFullName("Seed User " + i);
+            user.setStatus(statuses[i % statuses.length]);
+            batch.add(user);
+            if (batch.size() == 1000) {
+                service.batchCreateUsers(batch);
+                batch = new ArrayList<>(1000);
+            }
+        }
+        if (!batch.isEmpty()) {
+            service.batchCreateUsers(batch);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.benchmark;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Druid连接池参数基准，不需要Spring上下文
+ * 32个线程争用连接，对比连接数和PreparedStatement缓存对吞吐和尾延迟（SampleTime的p99）的影响。
+ * maxActive 小于线程数时可以直接看到连接池饥饿造成的延迟尖刺
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConnectionPoolBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"4", "10", "32"})
+    public int maxActive;
+
+    @Param({"0", "50"})
+    public int preparedStatementCacheSize;
+
+    private DruidDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = new DruidDataSource();
+        dataSource.setUrl("jdbc:h2:mem:pool_benchmark;MODE=MYSQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setInitialSize(maxActive);
+        dataSource.setMinIdle(maxActive);
+        dataSource.setMaxActive(maxActive);
+        dataSource.setMaxWait(10_000);
+        dataSource.setUseUnfairLock(true);
+        dataSource.setPoolPreparedStatements(preparedStatementCacheSize > 0);
+        dataSource.setMaxPoolPreparedStatementPerConnectionSize(preparedStatementCacheSize);
+        dataSource.init();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS bench_user (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+            statement.execute("DELETE FROM bench_user");
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO bench_user VALUES (?, ?)")) {
+                for (int i = 0; i < ROWS; i++) {
+                    insert.setLong(1, i);
+                    insert.setString(2, "user" + i);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    /**
+     * 借出连接、执行一次主键查询、归还连接
+     */
+    @Benchmark
+    public String borrowAndQuery() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT name FROM bench_user WHERE id = ?")) {
+            statement.setLong(1, ThreadLocalRandom.current().nextInt(ROWS));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+
+    /**
+     * 只借出和归还连接，衡量连接池本身的开销
+     */
+    @Benchmark
+    public boolean borrowOnly() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isClosed();
+        }
+    }
+}
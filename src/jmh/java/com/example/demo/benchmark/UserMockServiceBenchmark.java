@@ -0,0 +1,76 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.User;
+import com.example.demo.mock.UserMockService;
+import com.example.demo.mock.impl.UserMockServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserMockServiceImpl 内存查找基准，不需要Spring上下文
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMockServiceBenchmark {
+
+    @Param({"10000", "100000"})
+    public int userCount;
+
+    private UserMockService service;
+
+    private long maxId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new UserMockServiceImpl();
+        service.generateMockUsers(userCount).forEach(service::createMockUser);
+        maxId = service.getAllMockUsers().stream().mapToLong(User::getId).max().orElse(1);
+    }
+
+    private String randomUsername() {
+        return "user" + ThreadLocalRandom.current().nextLong(1, maxId + 1);
+    }
+
+    @Benchmark
+    public Optional<User> getMockUserById() {
+        return service.getMockUserById(ThreadLocalRandom.current().nextLong(1, maxId + 1));
+    }
+
+    @Benchmark
+    public Optional<User> getMockUserByUsername() {
+        return service.getMockUserByUsername(randomUsername());
+    }
+
+    @Benchmark
+    public boolean mockUsernameExists() {
+        return service.mockUsernameExists(randomUsername());
+    }
+
+    @Benchmark
+    public boolean mockValidateLogin() {
+        return service.mockValidateLogin(randomUsername(), "password");
+    }
+
+    @Benchmark
+    public UserMockService.MockDataStats getMockDataStats() {
+        return service.getMockDataStats();
+    }
+}
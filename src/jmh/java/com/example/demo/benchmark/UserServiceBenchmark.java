@@ -0,0 +1,38 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.User;
+import com.example.demo.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserServiceImpl 热点路径基准
+ * SampleTime 模式输出 p99 等分位延迟，配合 -prof gc 查看分配速率
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    @Benchmark
+    public User createUser(BenchmarkContext ctx) {
+        return ctx.bean(UserService.class).createUser(ctx.newUser("create"));
+    }
+
+    @Benchmark
+    public Optional<User> findByUsernameOrEmail(BenchmarkContext ctx) {
+        int i = ThreadLocalRandom.current().nextInt(ctx.userCount);
+        return ctx.bean(UserService.class).findByUsernameOrEmail(BenchmarkContext.seedUsername(i));
+    }
+}
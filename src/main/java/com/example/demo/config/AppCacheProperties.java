@@ -0,0 +1,98 @@
+package com.example.demo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 应用缓存配置 - 对应 app.cache.*
+ * 每个缓存可单独配置容量、权重和过期时间，未配置的项继承 defaults
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class AppCacheProperties {
+
+    /**
+     * 所有缓存的默认策略
+     */
+    private Spec defaults = Spec.of(10_000L, Duration.ofMinutes(10));
+
+    /**
+     * 按缓存名称覆盖的策略
+     */
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+
+    /**
+     * Hibernate二级缓存区域的默认策略
+     */
+    private Spec regionDefaults = Spec.of(10_000L, Duration.ofMinutes(30));
+
+    /**
+     * 按区域名称覆盖的二级缓存策略，键可以是完整区域名或去掉实体包名后的简称
+     */
+    private Map<String, Spec> regions = new LinkedHashMap<>();
+
+    /**
+     * 获取指定缓存的最终策略（缓存配置覆盖默认配置）
+     */
+    public Spec resolve(String cacheName) {
+        return merge(caches.get(cacheName), defaults);
+    }
+
+    /**
+     * 获取二级缓存区域的最终策略，先按完整区域名查找，再按简称查找
+     */
+    public Spec resolveRegion(String regionName, String shortName) {
+        Spec spec = regions.get(regionName);
+        if (spec == null) {
+            spec = regions.get(shortName);
+        }
+        return merge(spec, regionDefaults);
+    }
+
+    private static Spec merge(Spec spec, Spec defaults) {
+        if (spec == null) {
+            return defaults;
+        }
+        Spec merged = new Spec();
+        merged.setMaximumSize(spec.getMaximumSize() != null ? spec.getMaximumSize() : defaults.getMaximumSize());
+        merged.setMaximumWeight(spec.getMaximumWeight() != null ? spec.getMaximumWeight() : defaults.getMaximumWeight());
+        merged.setExpireAfterWrite(spec.getExpireAfterWrite() != null ? spec.getExpireAfterWrite() : defaults.getExpireAfterWrite());
+        merged.setExpireAfterAccess(spec.getExpireAfterAccess() != null ? spec.getExpireAfterAccess() : defaults.getExpireAfterAccess());
+        return merged;
+    }
+
+    @Data
+    public static class Spec {
+
+        /**
+         * 最大条目数，与 maximumWeight 二选一，同时配置时以权重为准
+         */
+        private Long maximumSize;
+
+        /**
+         * 最大总权重，集合类缓存值按元素个数计权
+         */
+        private Long maximumWeight;
+
+        /**
+         * 写入后过期时间
+         */
+        private Duration expireAfterWrite;
+
+        /**
+         * 访问后过期时间
+         */
+        private Duration expireAfterAccess;
+
+        static Spec of(Long maximumSize, Duration expireAfterWrite) {
+            Spec spec = new Spec();
+            spec.setMaximumSize(maximumSize);
+            spec.setExpireAfterWrite(expireAfterWrite);
+            return spec;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.config;
+
+/**
+ * 调用位置定位 - 为慢查询、N+1 和事务外懒加载日志找出触发数据库访问的应用代码
+ */
+public final class CallSites {
+
+    private static final String APP_PACKAGE = "com.example.demo.";
+
+    private static final String ENTITY_PACKAGE = APP_PACKAGE + "entity.";
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private CallSites() {
+    }
+
+    /**
+     * 调用方的第一个应用代码栈帧，格式为 类名.方法名:行号。
+     * 先跳过栈顶的监控代码（监听器、过滤器自身），再跳过 Hibernate/Druid 等框架栈帧和实体类（集合访问器）
+     */
+    public static String caller() {
+        return STACK_WALKER.walk(frames -> frames
+                .dropWhile(frame -> isApplication(frame.getClassName()))
+                .filter(frame -> isApplication(frame.getClassName())
+                        && !frame.getClassName().startsWith(ENTITY_PACKAGE))
+                .findFirst()
+                .map(frame -> frame.getClassName() + '.' + frame.getMethodName() + ':' + frame.getLineNumber())
+                .orElse("unknown"));
+    }
+
+    private static boolean isApplication(String className) {
+        return className.startsWith(APP_PACKAGE);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+
+import javax.cache.Cache;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate二级缓存区域工厂 - 基于进程内的Caffeine JCache实现
+ * 缺失的缓存区域按 app.cache.regions.* 的容量和过期时间创建
+ */
+@Slf4j
+public class ConfiguredJCacheRegionFactory extends JCacheRegionFactory {
+
+    /**
+     * 实体所在包名，区域配置可以省略该前缀（如 User、User.roles）
+     */
+    private static final String ENTITY_PACKAGE_PREFIX = "com.example.demo.entity.";
+
+    private final AppCacheProperties cacheProperties;
+
+    public ConfiguredJCacheRegionFactory(AppCacheProperties cacheProperties) {
+        this.cacheProperties = cacheProperties;
+    }
+
+    @Override
+    protected Cache<Object, Object> createCache(String regionName) {
+        String shortName = regionName.startsWith(ENTITY_PACKAGE_PREFIX)
+                ? regionName.substring(ENTITY_PACKAGE_PREFIX.length())
+                : regionName;
+        AppCacheProperties.Spec spec = cacheProperties.resolveRegion(regionName, shortName);
+
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // 缓存条目只在本进程内使用，无需按值拷贝
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        if (spec.getMaximumSize() != null) {
+            configuration.setMaximumSize(OptionalLong.of(spec.getMaximumSize()));
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(spec.getExpireAfterWrite().toNanos()));
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            configuration.setExpireAfterAccess(OptionalLong.of(spec.getExpireAfterAccess().toNanos()));
+        }
+
+        log.debug("Creating second-level cache region {} (maximumSize={}, expireAfterWrite={})",
+                regionName, spec.getMaximumSize(), spec.getExpireAfterWrite());
+        return getCacheManager().createCache(regionName, configuration);
+    }
+}
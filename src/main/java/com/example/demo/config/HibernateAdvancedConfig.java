@@ -1,8 +1,16 @@
 package com.example.demo.config;
 
+import com.example.demo.entity.PooledLoSequenceGenerator;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -14,6 +22,9 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import jakarta.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
 
 /**
@@ -23,13 +34,44 @@ import java.util.Properties;
 @EnableCaching
 @EnableTransactionManagement
 @EnableJpaRepositories(basePackages = "com.example.demo.repository")
+@EnableConfigurationProperties(AppCacheProperties.class)
 public class HibernateAdvancedConfig {
     
+    /**
+     * 应用内缓存名称
+     */
+    public static final String[] CACHE_NAMES = {
+        "users", "roles", "permissions", "userRoles", "products", "orders"
+    };
+    
+    /**
+     * 主键序列号段大小，越大则取序列的次数越少，重启时浪费的号段也越多
+     */
+    @Value("${app.hibernate.id-allocation-size:50}")
+    private int idAllocationSize;
+    
+    /**
+     * 是否输出及格式化SQL，压测和生产环境应关闭
+     */
+    @Value("${app.hibernate.show-sql:false}")
+    private boolean showSql;
+    
+    @Value("${app.hibernate.format-sql:false}")
+    private boolean formatSql;
+    
+    /**
+     * 是否允许在事务外临时打开会话完成懒加载，默认关闭：关联应由抓取计划在事务内加载
+     */
+    @Value("${app.hibernate.lazy-load-no-trans:false}")
+    private boolean lazyLoadNoTrans;
+    
     /**
      * 配置EntityManagerFactory with Hibernate高级特性
      */
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource,
+                                                                       AppCacheProperties cacheProperties,
+                                                                       QueryMonitor queryMonitor) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource);
         em.setPackagesToScan("com.example.demo.entity");
@@ -37,6 +79,11 @@ public class HibernateAdvancedConfig {
         HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
         em.setJpaProperties(hibernateProperties());
+        // 二级缓存区域工厂以实例方式传入，便于使用Spring中的区域配置
+        em.getJpaPropertyMap().put("hibernate.cache.region.factory_class",
+            new ConfiguredJCacheRegionFactory(cacheProperties));
+        // 统计实现由查询监控提供，用于慢查询日志和 N+1 检测
+        em.getJpaPropertyMap().put("hibernate.stats.factory", queryMonitor);
         
         return em;
     }
@@ -50,12 +97,15 @@ public class HibernateAdvancedConfig {
         // 基本配置
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
         properties.setProperty("hibernate.hbm2ddl.auto", "update");
-        properties.setProperty("hibernate.show_sql", "true");
-        properties.setProperty("hibernate.format_sql", "true");
+        properties.setProperty("hibernate.show_sql", String.valueOf(showSql));
+        properties.setProperty("hibernate.format_sql", String.valueOf(formatSql));
 
-        // 二级缓存配置 - 暂时禁用以确保应用启动
-        properties.setProperty("hibernate.cache.use_second_level_cache", "false");
-        properties.setProperty("hibernate.cache.use_query_cache", "false");
+        // 二级缓存配置 - 进程内Caffeine JCache，区域不存在时按配置自动创建
+        properties.setProperty("hibernate.cache.use_second_level_cache", "true");
+        properties.setProperty("hibernate.cache.use_query_cache", "true");
+        properties.setProperty("hibernate.javax.cache.provider",
+            "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+        properties.setProperty("hibernate.javax.cache.missing_cache_strategy", "create");
         
         // 批处理配置
         properties.setProperty("hibernate.jdbc.batch_size", "20");
@@ -63,14 +113,14 @@ public class HibernateAdvancedConfig {
         properties.setProperty("hibernate.order_inserts", "true");
         properties.setProperty("hibernate.order_updates", "true");
         
-        // 连接池配置
-        properties.setProperty("hibernate.connection.pool_size", "10");
+        // 主键生成配置 - 序列号段大小（pooled-lo）
+        properties.setProperty(PooledLoSequenceGenerator.ALLOCATION_SIZE_SETTING, String.valueOf(idAllocationSize));
         
-        // 统计信息
+        // 统计信息（由 HibernateStatisticsMetrics 发布为指标）
         properties.setProperty("hibernate.generate_statistics", "true");
         
         // 懒加载配置
-        properties.setProperty("hibernate.enable_lazy_load_no_trans", "true");
+        properties.setProperty("hibernate.enable_lazy_load_no_trans", String.valueOf(lazyLoadNoTrans));
         
         // SQL注释
         properties.setProperty("hibernate.use_sql_comments", "true");
@@ -96,14 +146,63 @@ public class HibernateAdvancedConfig {
     }
     
     /**
-     * 缓存管理器配置
+     * 事务外懒加载检测
+     */
+    @Bean
+    public LazyLoadDetector lazyLoadDetector(EntityManagerFactory emf, MeterRegistry meterRegistry) {
+        LazyLoadDetector detector = new LazyLoadDetector(meterRegistry);
+        emf.unwrap(SessionFactoryImplementor.class)
+           .getServiceRegistry()
+           .getService(EventListenerRegistry.class)
+           .appendListeners(EventType.INIT_COLLECTION, detector);
+        return detector;
+    }
+    
+    /**
+     * 缓存管理器配置 - 基于Caffeine(W-TinyLFU)的有界缓存
+     * 开启统计后由actuator自动注册 cache.gets / cache.evictions 等指标
      */
     @Bean
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        cacheManager.setCacheNames(java.util.Arrays.asList(
-            "users", "roles", "permissions", "userRoles", "products", "orders"
-        ));
+    public CacheManager cacheManager(AppCacheProperties cacheProperties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // 只允许使用预先声明的缓存，避免动态创建出无界缓存
+        cacheManager.setCacheNames(java.util.Arrays.asList(CACHE_NAMES));
+        for (String cacheName : CACHE_NAMES) {
+            cacheManager.registerCustomCache(cacheName, buildCache(cacheProperties.resolve(cacheName)).build());
+        }
         return cacheManager;
     }
+    
+    private Caffeine<Object, Object> buildCache(AppCacheProperties.Spec spec) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (spec.getMaximumWeight() != null) {
+            builder.maximumWeight(spec.getMaximumWeight())
+                   .weigher(HibernateAdvancedConfig::weigh);
+        } else if (spec.getMaximumSize() != null) {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        return builder;
+    }
+    
+    /**
+     * 缓存值权重：集合按元素个数计算，其余按1计算
+     */
+    private static int weigh(Object key, Object value) {
+        if (value instanceof Optional<?> optional) {
+            value = optional.orElse(null);
+        }
+        if (value instanceof Collection<?> collection) {
+            return Math.max(1, collection.size());
+        }
+        if (value instanceof Map<?, ?> map) {
+            return Math.max(1, map.size());
+        }
+        return 1;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Hibernate统计与查询监控配置
+ * QueryMonitor 作为统计实现的工厂传给 EntityManagerFactory；统计值发布为 hibernate.* 指标；
+ * app.hibernate.monitoring.request-tracking=true 时按请求检查 N+1
+ */
+@Configuration
+@EnableConfigurationProperties(HibernateMonitoringProperties.class)
+public class HibernateMonitoringConfig {
+
+    @Bean
+    public QueryMonitor queryMonitor(HibernateMonitoringProperties properties, MeterRegistry meterRegistry) {
+        return new QueryMonitor(properties, meterRegistry);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public HibernateStatisticsMetrics hibernateStatisticsMetrics(EntityManagerFactory entityManagerFactory,
+                                                                 HibernateMonitoringProperties properties) {
+        return new HibernateStatisticsMetrics(entityManagerFactory, properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.hibernate.monitoring", name = "request-tracking", havingValue = "true",
+            matchIfMissing = true)
+    public FilterRegistrationBean<QueryMonitorFilter> queryMonitorFilter(QueryMonitor queryMonitor) {
+        FilterRegistrationBean<QueryMonitorFilter> registration =
+                new FilterRegistrationBean<>(new QueryMonitorFilter(queryMonitor));
+        // 位于准入控制之后，排队等待的请求不开始统计
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+}
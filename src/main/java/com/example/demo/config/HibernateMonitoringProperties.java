@@ -0,0 +1,40 @@
+package com.example.demo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Hibernate统计与查询监控配置 - 对应 app.hibernate.monitoring.*
+ * 依赖 hibernate.generate_statistics=true
+ */
+@Data
+@ConfigurationProperties(prefix = "app.hibernate.monitoring")
+public class HibernateMonitoringProperties {
+
+    /**
+     * 执行时间达到该值的HQL/原生查询记录慢查询日志
+     */
+    private Duration slowQueryThreshold = Duration.ofMillis(500);
+
+    /**
+     * 是否按请求统计单独抓取（懒加载实体、集合）的次数
+     */
+    private boolean requestTracking = true;
+
+    /**
+     * 单个请求中同一实体类型或集合的单独抓取次数超过该值时视为 N+1
+     */
+    private int repeatedFetchThreshold = 10;
+
+    /**
+     * 按查询语句发布指标的最大语句数，超出的语句只计入汇总指标
+     */
+    private int maxQueryMetrics = 200;
+
+    /**
+     * 发现新查询语句并注册指标的间隔
+     */
+    private Duration queryMetricsRefresh = Duration.ofSeconds(30);
+}
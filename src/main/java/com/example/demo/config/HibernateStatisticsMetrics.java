@@ -0,0 +1,184 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Hibernate统计指标
+ * 把 SessionFactory.getStatistics() 的累计值发布为 hibernate.* 指标：会话、事务、flush、语句、
+ * 实体和集合的加载/抓取、查询执行次数和最长耗时、二级缓存与查询缓存命中。
+ * 查询语句是运行时才出现的，由后台线程定期为新语句注册 hibernate.query（次数和总耗时）、
+ * hibernate.query.max 和 hibernate.query.rows，数量受 max-query-metrics 限制
+ */
+@Slf4j
+public class HibernateStatisticsMetrics implements MeterBinder {
+
+    private final Statistics statistics;
+
+    private final HibernateMonitoringProperties properties;
+
+    private final Set<String> registeredQueries = ConcurrentHashMap.newKeySet();
+
+    private volatile MeterRegistry registry;
+
+    private ScheduledExecutorService refresher;
+
+    public HibernateStatisticsMetrics(EntityManagerFactory entityManagerFactory,
+                                      HibernateMonitoringProperties properties) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.properties = properties;
+    }
+
+    public synchronized void start() {
+        if (refresher != null) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hibernate-query-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getQueryMetricsRefresh().toMillis();
+        refresher.scheduleWithFixedDelay(this::registerQueries, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+
+        counter(registry, "hibernate.sessions.open", Statistics::getSessionOpenCount);
+        counter(registry, "hibernate.sessions.closed", Statistics::getSessionCloseCount);
+        FunctionCounter.builder("hibernate.transactions", statistics, Statistics::getSuccessfulTransactionCount)
+                .tag("result", "success")
+                .register(registry);
+        FunctionCounter.builder("hibernate.transactions", statistics,
+                        stats -> stats.getTransactionCount() - stats.getSuccessfulTransactionCount())
+                .tag("result", "failure")
+                .register(registry);
+        counter(registry, "hibernate.optimistic.failures", Statistics::getOptimisticFailureCount);
+        counter(registry, "hibernate.flushes", Statistics::getFlushCount);
+        counter(registry, "hibernate.connections.obtained", Statistics::getConnectCount);
+        FunctionCounter.builder("hibernate.statements", statistics, Statistics::getPrepareStatementCount)
+                .tag("status", "prepared")
+                .register(registry);
+        FunctionCounter.builder("hibernate.statements", statistics, Statistics::getCloseStatementCount)
+                .tag("status", "closed")
+                .register(registry);
+
+        counter(registry, "hibernate.entities.loads", Statistics::getEntityLoadCount);
+        counter(registry, "hibernate.entities.fetches", Statistics::getEntityFetchCount);
+        counter(registry, "hibernate.entities.inserts", Statistics::getEntityInsertCount);
+        counter(registry, "hibernate.entities.updates", Statistics::getEntityUpdateCount);
+        counter(registry, "hibernate.entities.deletes", Statistics::getEntityDeleteCount);
+        counter(registry, "hibernate.collections.loads", Statistics::getCollectionLoadCount);
+        counter(registry, "hibernate.collections.fetches", Statistics::getCollectionFetchCount);
+        counter(registry, "hibernate.collections.updates", Statistics::getCollectionUpdateCount);
+        counter(registry, "hibernate.collections.deletes", Statistics::getCollectionRemoveCount);
+        counter(registry, "hibernate.collections.recreates", Statistics::getCollectionRecreateCount);
+        // 单独抓取（fetch）多说明存在懒加载引起的额外查询，按实体细分
+        for (String entityName : statistics.getEntityNames()) {
+            String entity = QueryMonitor.entity(entityName);
+            FunctionCounter.builder("hibernate.entity.loads", statistics,
+                            stats -> stats.getEntityStatistics(entityName).getLoadCount())
+                    .tag("entity", entity)
+                    .register(registry);
+            FunctionCounter.builder("hibernate.entity.fetches", statistics,
+                            stats -> stats.getEntityStatistics(entityName).getFetchCount())
+                    .tag("entity", entity)
+                    .register(registry);
+        }
+
+        counter(registry, "hibernate.query.executions", Statistics::getQueryExecutionCount);
+        TimeGauge.builder("hibernate.query.executions.max", statistics, TimeUnit.MILLISECONDS,
+                        Statistics::getQueryExecutionMaxTime)
+                .register(registry);
+
+        cacheRequests(registry, "hibernate.second.level.cache.requests", Statistics::getSecondLevelCacheHitCount,
+                Statistics::getSecondLevelCacheMissCount);
+        counter(registry, "hibernate.second.level.cache.puts", Statistics::getSecondLevelCachePutCount);
+        Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics,
+                        stats -> ratio(stats.getSecondLevelCacheHitCount(), stats.getSecondLevelCacheMissCount()))
+                .register(registry);
+        cacheRequests(registry, "hibernate.cache.query.requests", Statistics::getQueryCacheHitCount,
+                Statistics::getQueryCacheMissCount);
+        counter(registry, "hibernate.cache.query.puts", Statistics::getQueryCachePutCount);
+
+        registerQueries();
+    }
+
+    private void counter(MeterRegistry registry, String name, ToDoubleFunction<Statistics> count) {
+        FunctionCounter.builder(name, statistics, count).register(registry);
+    }
+
+    private void cacheRequests(MeterRegistry registry, String name, ToDoubleFunction<Statistics> hits,
+                               ToDoubleFunction<Statistics> misses) {
+        FunctionCounter.builder(name, statistics, hits).tag("result", "hit").register(registry);
+        FunctionCounter.builder(name, statistics, misses).tag("result", "miss").register(registry);
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+
+    /**
+     * 为尚未注册的查询语句注册指标
+     */
+    void registerQueries() {
+        MeterRegistry target = registry;
+        if (target == null) {
+            return;
+        }
+        try {
+            for (String query : statistics.getQueries()) {
+                if (registeredQueries.size() >= properties.getMaxQueryMetrics()) {
+                    return;
+                }
+                if (registeredQueries.add(query)) {
+                    registerQuery(target, query);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to register Hibernate query metrics: {}", e.getMessage());
+        }
+    }
+
+    private void registerQuery(MeterRegistry registry, String query) {
+        FunctionTimer.builder("hibernate.query", statistics,
+                        stats -> stats.getQueryStatistics(query).getExecutionCount(),
+                        stats -> stats.getQueryStatistics(query).getExecutionTotalTime(),
+                        TimeUnit.MILLISECONDS)
+                .tag("query", query)
+                .register(registry);
+        TimeGauge.builder("hibernate.query.max", statistics, TimeUnit.MILLISECONDS,
+                        stats -> stats.getQueryStatistics(query).getExecutionMaxTime())
+                .tag("query", query)
+                .register(registry);
+        FunctionCounter.builder("hibernate.query.rows", statistics,
+                        stats -> stats.getQueryStatistics(query).getExecutionRowCount())
+                .tag("query", query)
+                .register(registry);
+    }
+}
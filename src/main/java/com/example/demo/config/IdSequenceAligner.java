@@ -0,0 +1,63 @@
+package com.example.demo.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * 主键序列校准
+ * 实体主键由IDENTITY改为序列后，已有数据库中的表可能已经有了较大的主键，
+ * 启动时把落后于 max(id) 的序列重置到 max(id)+1，避免主键冲突
+ */
+@Slf4j
+@Order(-2)
+@Component
+@RequiredArgsConstructor
+public class IdSequenceAligner implements ApplicationRunner {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final DataSource dataSource;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister.getGenerator() instanceof SequenceStyleGenerator generator
+                    && persister instanceof AbstractEntityPersister entityPersister) {
+                String sequenceName = generator.getDatabaseStructure().getPhysicalName().render();
+                align(jdbcTemplate, sequenceName, entityPersister.getIdentifierTableName(),
+                        entityPersister.getIdentifierColumnNames()[0]);
+            }
+        });
+    }
+
+    private void align(JdbcTemplate jdbcTemplate, String sequenceName, String tableName, String idColumn) {
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(" + idColumn + ") FROM " + tableName, Long.class);
+            if (maxId == null) {
+                return;
+            }
+            Long nextValue = jdbcTemplate.queryForObject(
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE LOWER(SEQUENCE_NAME) = LOWER(?)",
+                    Long.class, sequenceName);
+            if (nextValue == null || nextValue <= maxId) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequenceName + " RESTART WITH " + (maxId + 1));
+                log.info("Aligned sequence {} to {} (max id of {})", sequenceName, maxId + 1, tableName);
+            }
+        } catch (Exception ex) {
+            log.warn("Failed to align sequence {} with table {}: {}", sequenceName, tableName, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 事务外懒加载检测
+ * 会话仍打开但没有活动事务时初始化集合（open-in-view 下的视图渲染或JSON序列化阶段），说明调用方的抓取计划遗漏了该关联，
+ * 每次加载都是一条额外的查询且可能拿不到一致的数据。检测到时计数，并对每个“关联 + 调用位置”只记录一次警告；
+ * 会话已关闭时 Hibernate 直接抛出 LazyInitializationException，不经过这里
+ */
+@Slf4j
+public class LazyLoadDetector implements InitializeCollectionEventListener {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+
+    public LazyLoadDetector(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        String association = association(event.getCollection().getRole());
+        Counter.builder("hibernate.lazy_load.outside_transaction")
+                .tag("association", association)
+                .register(meterRegistry)
+                .increment();
+        String caller = CallSites.caller();
+        if (reported.add(association + '@' + caller)) {
+            log.warn("Lazy loading {} outside a transaction from {}; add it to the fetch plan", association, caller);
+        }
+    }
+
+    /**
+     * 去掉包名的集合角色，如 User.roles
+     */
+    static String association(String role) {
+        if (role == null) {
+            return "unknown";
+        }
+        int property = role.lastIndexOf('.');
+        int entity = property > 0 ? role.lastIndexOf('.', property - 1) : -1;
+        return role.substring(entity + 1);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 查询监控
+ * 作为 hibernate.stats.factory 提供 Statistics 实现，在 Hibernate 记录统计的同一调用中：
+ * 执行时间达到阈值的HQL/原生查询记录慢查询日志（语句、参数个数、行数、调用方）；
+ * 在请求作用域内按实体类型和集合统计单独抓取（懒加载代理、集合初始化）的次数，
+ * 请求结束时超过阈值的记为疑似 N+1。统计回调发生在执行查询的线程上，调用栈即业务调用栈
+ */
+@Slf4j
+public class QueryMonitor implements StatisticsFactory {
+
+    private final long slowQueryMillis;
+
+    private final int repeatedFetchThreshold;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter slowQueries;
+
+    /**
+     * 当前请求中各实体类型/集合的单独抓取次数，作用域外为空
+     */
+    private final ThreadLocal<Map<String, Integer>> fetches = new ThreadLocal<>();
+
+    public QueryMonitor(HibernateMonitoringProperties properties, MeterRegistry meterRegistry) {
+        this.slowQueryMillis = properties.getSlowQueryThreshold().toMillis();
+        this.repeatedFetchThreshold = properties.getRepeatedFetchThreshold();
+        this.meterRegistry = meterRegistry;
+        this.slowQueries = Counter.builder("hibernate.query.slow").register(meterRegistry);
+    }
+
+    @Override
+    public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+        return new MonitoredStatistics(sessionFactory);
+    }
+
+    /**
+     * 开始统计当前线程上的单独抓取，作用域关闭时检查 N+1；作用域可嵌套，内层关闭后恢复外层
+     *
+     * @param name 日志中的作用域名称，如请求方法和路径
+     */
+    public Scope openScope(String name) {
+        Scope scope = new Scope(name, fetches.get());
+        fetches.set(new HashMap<>());
+        return scope;
+    }
+
+    void queryExecuted(String query, int rows, long millis) {
+        if (millis < slowQueryMillis) {
+            return;
+        }
+        slowQueries.increment();
+        log.warn("Slow query took {} ms ({} rows, {} parameters) from {}: {}",
+                millis, rows, parameterCount(query), CallSites.caller(), query);
+    }
+
+    void fetched(String association) {
+        Map<String, Integer> counts = fetches.get();
+        if (counts != null) {
+            counts.merge(association, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 统计查询中的参数占位符（?、?1、:name），跳过字符串字面量
+     */
+    static int parameterCount(String query) {
+        if (query == null) {
+            return 0;
+        }
+        int count = 0;
+        boolean quoted = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (!quoted && (c == '?'
+                    || c == ':' && i + 1 < query.length() && Character.isJavaIdentifierStart(query.charAt(i + 1))
+                            && (i == 0 || query.charAt(i - 1) != ':'))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 去掉包名的实体名，如 Order
+     */
+    static String entity(String entityName) {
+        return entityName == null ? "unknown" : entityName.substring(entityName.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * 请求作用域
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final String name;
+
+        private final Map<String, Integer> outer;
+
+        private Scope(String name, Map<String, Integer> outer) {
+            this.name = name;
+            this.outer = outer;
+        }
+
+        @Override
+        public void close() {
+            Map<String, Integer> counts = fetches.get();
+            if (outer == null) {
+                fetches.remove();
+            } else {
+                fetches.set(outer);
+            }
+            if (counts == null) {
+                return;
+            }
+            counts.forEach((association, count) -> {
+                if (count > repeatedFetchThreshold) {
+                    Counter.builder("hibernate.query.n_plus_one")
+                            .tag("association", association)
+                            .register(meterRegistry)
+                            .increment();
+                    log.warn("Possible N+1 in {}: {} fetched separately {} times", name, association, count);
+                }
+            });
+        }
+    }
+
+    /**
+     * 在默认统计之外回调监控逻辑
+     */
+    private final class MonitoredStatistics extends StatisticsImpl {
+
+        private MonitoredStatistics(SessionFactoryImplementor sessionFactory) {
+            super(sessionFactory);
+        }
+
+        @Override
+        public void queryExecuted(String hql, int rows, long time) {
+            super.queryExecuted(hql, rows, time);
+            QueryMonitor.this.queryExecuted(hql, rows, time);
+        }
+
+        @Override
+        public void fetchEntity(String entityName) {
+            super.fetchEntity(entityName);
+            fetched(entity(entityName));
+        }
+
+        @Override
+        public void fetchCollection(String role) {
+            super.fetchCollection(role);
+            fetched(LazyLoadDetector.association(role));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 为每个请求打开查询监控作用域，请求结束时检查 N+1。
+ * 只覆盖请求线程，流式响应等异步处理中的抓取不计入
+ */
+public class QueryMonitorFilter extends OncePerRequestFilter {
+
+    private final QueryMonitor queryMonitor;
+
+    public QueryMonitorFilter(QueryMonitor queryMonitor) {
+        this.queryMonitor = queryMonitor;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (QueryMonitor.Scope ignored = queryMonitor.openScope(request.getMethod() + " " + request.getRequestURI())) {
+            chain.doFilter(request, response);
+        }
+    }
+}
@@ -3,39 +3,48 @@ package com.example.demo.controller;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.elasticsearch._types.SortOrder;
 import co.elastic.clients.elasticsearch.security.User;
-import co.elastic.clients.json.jackson.JacksonJsonpMapper;
-import co.elastic.clients.transport.ElasticsearchTransport;
-import co.elastic.clients.transport.rest_client.RestClientTransport;
-import org.apache.http.Header;
-import org.apache.http.HttpHost;
-import org.apache.http.message.BasicHeader;
-import org.elasticsearch.client.RestClient;
+import com.example.demo.elasticsearch.SearchIndexProperties;
+import com.example.demo.elasticsearch.BulkIndexer;
+import com.example.demo.elasticsearch.UserSearchExporter;
+import com.example.demo.service.AdvancedHibernateService;
+import com.example.demo.service.KeysetPage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RequestMapping(value = "/elasticsearch")
 @RestController
 public class ElasticsearchController {
 
+    /**
+     * Spring Boot自动配置的单例客户端，底层共享一个带连接池的RestClient
+     */
+    @Autowired
+    private ElasticsearchClient esClient;
+
+    @Autowired
+    private ObjectProvider<BulkIndexer> bulkIndexer;
+
+    @Autowired
+    private SearchIndexProperties searchIndexProperties;
+
+    @Autowired
+    private AdvancedHibernateService hibernateService;
+
+    @Autowired
+    private UserSearchExporter userSearchExporter;
+
     @RequestMapping(value = "/mock", method = RequestMethod.POST)
     @ResponseBody
     public void mock() {
-        // URL and API key
-        String serverUrl = "https://localhost:9200";
-        String apiKey = "VnVhQ2ZHY0JDZGJrU...";
-        // Create the low-level client
-        RestClient restClient = RestClient
-                .builder(HttpHost.create(serverUrl))
-                .setDefaultHeaders(new Header[]{
-                        new BasicHeader("Authorization", "ApiKey " + apiKey)
-                })
-                .build();
-        // Create the transport with a Jackson mapper
-        ElasticsearchTransport transport = new RestClientTransport(
-                restClient, new JacksonJsonpMapper());
-        // And create the API client
-        ElasticsearchClient esClient = new ElasticsearchClient(transport);
         try {
             esClient.search(s -> s
                             .index("users")                                  // 目标索引
@@ -92,4 +101,67 @@ public class ElasticsearchController {
         }
     }
 
+    /**
+     * 把数据库中的全部用户重新推送到 users 索引，按游标分页读取，由批量索引器写入。
+     * 每页等待写入结果后再读下一页，缓冲区中最多只有一页重建文档，不会因缓冲区满被丢弃；
+     * pageSize 超过缓冲区容量或游标分页上限时按两者中较小的值截断。
+     * 仍然失败（如重试耗尽）的文档计入失败数
+     */
+    @PostMapping("/users/reindex")
+    public ResponseEntity<String> reindexUsers(@RequestParam(defaultValue = "1000") int pageSize) {
+        BulkIndexer indexer = bulkIndexer.getIfAvailable();
+        if (indexer == null) {
+            return ResponseEntity.badRequest().body("批量索引器未启用（app.elasticsearch.bulk.enabled）");
+        }
+        if (pageSize <= 0) {
+            return ResponseEntity.badRequest().body("pageSize 必须为正数");
+        }
+        pageSize = Math.min(pageSize, Math.min(searchIndexProperties.getBulk().getBufferCapacity(),
+                AdvancedHibernateService.MAX_KEYSET_PAGE_SIZE));
+        long indexed = 0;
+        long failed = 0;
+        String cursor = null;
+        do {
+            KeysetPage<com.example.demo.entity.User> page =
+                    hibernateService.findUsersByKeyset(null, null, null, cursor, pageSize, false);
+            List<CompletableFuture<BulkIndexer.Result>> results = new ArrayList<>(page.getContent().size());
+            for (com.example.demo.entity.User user : page.getContent()) {
+                results.add(indexer.submitIndex(user));
+            }
+            for (CompletableFuture<BulkIndexer.Result> result : results) {
+                if (result.join() == BulkIndexer.Result.SUCCEEDED) {
+                    indexed++;
+                } else {
+                    failed++;
+                }
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        String message = "已索引 " + indexed + " 个用户，失败 " + failed + " 个";
+        return failed == 0 ? ResponseEntity.ok(message) : ResponseEntity.internalServerError().body(message);
+    }
+
+    /**
+     * 流式导出用户搜索结果，每行一个JSON文档（NDJSON）
+     * 使用 PIT + search_after 逐页读取，边读边写；trackTotalHits=true 时通过 X-Total-Count 返回总命中数
+     */
+    @GetMapping(value = "/users/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(required = false) String status,
+                                                             @RequestParam(required = false) String name,
+                                                             @RequestParam(defaultValue = "1000") int pageSize,
+                                                             @RequestParam(defaultValue = "false") boolean trackTotalHits)
+            throws IOException {
+        UserSearchExporter.Export export = userSearchExporter.open(status, name, pageSize, trackTotalHits);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"));
+        if (export.totalHits() != null) {
+            response.header("X-Total-Count", String.valueOf(export.totalHits()));
+        }
+        return response.body(out -> {
+            try (export) {
+                export.writeTo(out);
+            }
+        });
+    }
+
 }
@@ -2,16 +2,29 @@ package com.example.demo.controller;
 
 import com.example.demo.entity.*;
 import com.example.demo.service.AdvancedHibernateService;
+import com.example.demo.service.KeysetPage;
+import com.example.demo.service.UserFetchPlan;
+import com.example.demo.service.UserImportService;
 import com.example.demo.repository.AdvancedUserRepository;
+import com.example.demo.repository.UserBasicInfo;
+import com.example.demo.repository.UserSummary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ArrayList;
 import java.math.BigDecimal;
@@ -29,6 +42,9 @@ public class HibernateAdvancedController {
     @Autowired
     private AdvancedUserRepository userRepository;
     
+    @Autowired
+    private UserImportService userImportService;
+    
     /**
      * 演示Hibernate的各种高级功能
      */
@@ -163,6 +179,29 @@ public class HibernateAdvancedController {
         return ResponseEntity.ok(result);
     }
     
+    /**
+     * 游标分页查询，首页不传cursor，之后传入上一页返回的nextCursor
+     * 每一页的代价与首页相同，总数只在 includeTotal=true 时计算；
+     * size 最大为 MAX_KEYSET_PAGE_SIZE，非正数或cursor无效时返回400
+     */
+    @GetMapping("/users/search/keyset")
+    public ResponseEntity<?> searchUsersByKeyset(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) User.UserStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        
+        try {
+            KeysetPage<User> result = hibernateService.findUsersByKeyset(username, email, status, cursor, size,
+                    includeTotal);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @GetMapping("/users/criteria")
     public ResponseEntity<List<User>> findUsersByCriteria(
             @RequestParam(required = false) String username,
@@ -179,6 +218,97 @@ public class HibernateAdvancedController {
         return ResponseEntity.ok(users);
     }
     
+    /**
+     * 抓取计划API - with 列出需要的关联（roles、roles.permissions、userProfiles、orders），
+     * 只加载列出的关联，响应中也只包含这些关联；包含未知关联时返回400
+     */
+    @GetMapping("/users/fetch")
+    public ResponseEntity<?> fetchUsers(@RequestParam List<Long> ids,
+                                        @RequestParam(required = false) String with) {
+        UserFetchPlan plan;
+        try {
+            plan = UserFetchPlan.parse(with);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (User user : hibernateService.findUsers(ids, plan)) {
+            result.add(describe(user, plan));
+        }
+        return ResponseEntity.ok(result);
+    }
+    
+    @GetMapping("/users/{id}/fetch")
+    public ResponseEntity<?> fetchUser(@PathVariable Long id,
+                                       @RequestParam(required = false) String with) {
+        UserFetchPlan plan;
+        try {
+            plan = UserFetchPlan.parse(with);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return hibernateService.findUser(id, plan)
+                .<ResponseEntity<?>>map(user -> ResponseEntity.ok(describe(user, plan)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * 只读取计划中已初始化的关联，不会在序列化时触发懒加载
+     */
+    private static Map<String, Object> describe(User user, UserFetchPlan plan) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("id", user.getId());
+        view.put("username", user.getUsername());
+        if (plan.includes(UserFetchPlan.Association.ROLES)
+                || plan.includes(UserFetchPlan.Association.ROLE_PERMISSIONS)) {
+            view.put("roles", user.getRoles().stream().map(Role::getName).sorted().toList());
+        }
+        if (plan.includes(UserFetchPlan.Association.ROLE_PERMISSIONS)) {
+            view.put("permissions", user.getRoles().stream()
+                    .flatMap(role -> role.getPermissions().stream())
+                    .map(Permission::getCode)
+                    .distinct()
+                    .sorted()
+                    .toList());
+        }
+        if (plan.includes(UserFetchPlan.Association.PROFILES)) {
+            view.put("profileCount", user.getUserProfiles().size());
+        }
+        if (plan.includes(UserFetchPlan.Association.ORDERS)) {
+            view.put("orderCount", user.getOrders().size());
+        }
+        return view;
+    }
+    
+    /**
+     * 权限检查API - 查询预计算的权限索引
+     */
+    @GetMapping("/users/{id}/permissions/{code}")
+    public ResponseEntity<Boolean> hasPermission(@PathVariable Long id, @PathVariable String code) {
+        return ResponseEntity.ok(hibernateService.hasPermission(id, code));
+    }
+    
+    /**
+     * 投影查询API - 只返回 id/username/email，不加载用户实体
+     */
+    @GetMapping("/users/basic-info")
+    public ResponseEntity<List<UserBasicInfo>> getUserBasicInfo(
+            @RequestParam(defaultValue = "ACTIVE") User.UserStatus status) {
+        return ResponseEntity.ok(userRepository.findUserBasicInfo(status));
+    }
+    
+    /**
+     * 用户摘要分页，使用Slice不执行count查询
+     */
+    @GetMapping("/users/summaries")
+    public ResponseEntity<Slice<UserSummary>> getUserSummaries(
+            @RequestParam(defaultValue = "ACTIVE") User.UserStatus status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        return ResponseEntity.ok(userRepository.findSummariesByStatus(status, pageable));
+    }
+    
     /**
      * 统计查询API
      */
@@ -204,6 +334,38 @@ public class HibernateAdvancedController {
         return ResponseEntity.ok("批量创建了 " + count + " 个用户");
     }
     
+    /**
+     * 流式批量导入用户，请求体为NDJSON或带表头的CSV，边读边按块提交
+     * 失败后携带返回的jobId重新提交同一份数据即可从断点续传；
+     * chunkSize 超出范围或任务不存在返回400，任务未失败或正在执行返回409
+     */
+    @PostMapping(value = "/batch/users/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<?> importUsers(
+            HttpServletRequest request,
+            @RequestParam(defaultValue = "1000") int chunkSize,
+            @RequestParam(required = false) String jobId) throws IOException {
+        
+        UserImportService.Format format = request.getContentType() != null
+                && request.getContentType().startsWith("text/csv")
+                ? UserImportService.Format.CSV : UserImportService.Format.NDJSON;
+        try {
+            UserImportService.ImportProgress progress =
+                    userImportService.importUsers(request.getInputStream(), format, chunkSize, jobId);
+            return ResponseEntity.ok(progress);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/batch/users/import/{jobId}")
+    public ResponseEntity<UserImportService.ImportProgress> getImportProgress(@PathVariable String jobId) {
+        return userImportService.getProgress(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     @PutMapping("/batch/status")
     public ResponseEntity<String> batchUpdateUserStatus(
             @RequestParam User.UserStatus oldStatus,
@@ -213,6 +375,18 @@ public class HibernateAdvancedController {
         return ResponseEntity.ok("更新了 " + updatedCount + " 个用户的状态");
     }
     
+    /**
+     * 批量计算VIP等级，按用户ID区间分块并行处理
+     */
+    @PostMapping("/batch/vip-roles")
+    public ResponseEntity<String> batchAssignVipRoles(
+            @RequestParam(defaultValue = "10000") int chunkSize,
+            @RequestParam(defaultValue = "4") int parallelism) {
+        
+        long assigned = hibernateService.assignVipRolesInBatch(chunkSize, parallelism);
+        return ResponseEntity.ok("授予了 " + assigned + " 个用户VIP角色");
+    }
+    
     // 辅助方法
     private User createTestUser() {
         User user = new User();
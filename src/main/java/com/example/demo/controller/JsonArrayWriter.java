@@ -0,0 +1,40 @@
+package com.example.demo.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * 把逐个产出的元素写成JSON数组，每个元素序列化后直接进入响应流，不在内存中累积列表
+ */
+final class JsonArrayWriter {
+
+    private JsonArrayWriter() {
+    }
+
+    /**
+     * @param source 接收一个写出回调，在返回前把所有元素逐个交给它
+     */
+    static void write(ObjectMapper objectMapper, OutputStream out, Consumer<Consumer<Object>> source)
+            throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            try {
+                source.accept(row -> {
+                    try {
+                        generator.writeObject(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+        }
+    }
+}
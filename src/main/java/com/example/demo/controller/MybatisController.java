@@ -1,13 +1,20 @@
 package com.example.demo.controller;
 
 import com.example.demo.other.SysUser;
+import com.example.demo.other.SysUserBatchService;
 import com.example.demo.other.SysUserMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RequestMapping(value = "/mybatis")
 @RestController
 public class MybatisController {
@@ -15,6 +22,9 @@ public class MybatisController {
     @Autowired
     private SysUserMapper userMapper;
 
+    @Autowired
+    private SysUserBatchService batchService;
+
     @RequestMapping(value = "/mock", method = RequestMethod.POST)
     @ResponseBody
     public void mock() {
@@ -24,4 +34,13 @@ public class MybatisController {
         userMapper.selectById(1);
     }
 
+    /**
+     * 批量插入 sys_user，每 chunkSize 行一条多行INSERT，返回回填了id的用户
+     */
+    @PostMapping("/users/batch")
+    public ResponseEntity<List<SysUser>> batchInsert(@RequestBody List<SysUser> users,
+                                                     @RequestParam(defaultValue = "0") int chunkSize) {
+        return ResponseEntity.ok(batchService.insertAll(users, chunkSize));
+    }
+
 }
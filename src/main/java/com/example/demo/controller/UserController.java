@@ -2,10 +2,15 @@ package com.example.demo.controller;
 
 import com.example.demo.entity.User;
 import com.example.demo.entity.User.UserStatus;
+import com.example.demo.repository.UserSummary;
+import com.example.demo.service.UserExportRow;
 import com.example.demo.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +26,8 @@ public class UserController {
     
     private final UserService userService;
     
+    private final ObjectMapper objectMapper;
+    
     /**
      * 获取所有用户
      */
@@ -30,6 +37,42 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
     
+    /**
+     * 流式返回用户摘要列表（JSON数组）
+     * 只查询摘要列，不创建托管实体，查到一行写出一行，内存占用与结果数无关
+     */
+    @GetMapping(value = "/summaries", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUserSummaries(
+            @RequestParam(required = false) UserStatus status,
+            @RequestParam(required = false) String name) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> JsonArrayWriter.write(objectMapper, out,
+                        row -> userService.forEachUserSummary(status, name, row)));
+    }
+    
+    /**
+     * 流式导出全部用户（JSON数组）
+     * 只读事务内用前向游标逐行读取，每行转换为导出行后直接写出，会话定期清空，内存占用恒定
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> JsonArrayWriter.write(objectMapper, out,
+                        row -> userService.forEachUser(user -> row.accept(UserExportRow.from(user)))));
+    }
+    
+    /**
+     * 根据ID获取用户摘要
+     */
+    @GetMapping("/{id}/summary")
+    public ResponseEntity<UserSummary> getUserSummary(@PathVariable Long id) {
+        return userService.findSummaryById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     /**
      * 根据ID获取用户
      */
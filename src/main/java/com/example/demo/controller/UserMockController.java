@@ -3,9 +3,13 @@ package com.example.demo.controller;
 import com.example.demo.entity.User;
 import com.example.demo.entity.User.UserStatus;
 import com.example.demo.mock.UserMockService;
+import com.example.demo.service.UserExportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,8 +23,14 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class UserMockController {
     
+    private static final int MAX_GENERATE_COUNT = 10_000_000;
+    
+    private static final int MAX_RETURNED_USERS = 100;
+    
     private final UserMockService userMockService;
     
+    private final ObjectMapper objectMapper;
+    
     /**
      * 获取所有Mock用户
      */
@@ -30,6 +40,17 @@ public class UserMockController {
         return ResponseEntity.ok(users);
     }
     
+    /**
+     * 流式导出全部Mock用户（JSON数组），逐个写出，不生成完整列表
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportMockUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> JsonArrayWriter.write(objectMapper, out,
+                        row -> userMockService.forEachMockUser(user -> row.accept(UserExportRow.from(user)))));
+    }
+    
     /**
      * 根据ID获取Mock用户
      */
@@ -71,15 +92,20 @@ public class UserMockController {
     
     /**
      * 生成指定数量的Mock用户
+     * 超过 MAX_RETURNED_USERS 时只返回统计信息；传入seed可生成可复现的数据
      */
     @PostMapping("/generate/{count}")
-    public ResponseEntity<List<User>> generateMockUsers(@PathVariable int count) {
-        if (count <= 0 || count > 100) {
+    public ResponseEntity<?> generateMockUsers(@PathVariable int count,
+                                               @RequestParam(required = false) Long seed) {
+        if (count <= 0 || count > MAX_GENERATE_COUNT) {
             return ResponseEntity.badRequest().build();
         }
         
-        List<User> users = userMockService.generateMockUsers(count);
-        users.forEach(userMockService::createMockUser);
+        List<User> users = userMockService.generateMockUsers(count, seed);
+        userMockService.createMockUsers(users);
+        if (count > MAX_RETURNED_USERS) {
+            return ResponseEntity.ok(userMockService.getMockDataStats());
+        }
         return ResponseEntity.ok(users);
     }
     
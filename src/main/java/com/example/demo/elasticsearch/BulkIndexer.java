@@ -0,0 +1,436 @@
+package com.example.demo.elasticsearch;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.util.BinaryData;
+import com.example.demo.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.client.ResponseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elasticsearch批量索引器
+ * index/delete 只把操作放入有界缓冲区；后台线程按操作数、字节数或时间间隔攒成bulk请求，
+ * 最多 concurrentRequests 个请求同时在途，在途已满时攒批线程等待，形成背压。
+ * 整个请求或单个条目返回429时按指数退避重试，其余失败计数并记录日志。
+ * 不指定索引的方法写入 users 索引，submit* 方法可写入任意索引（如发件箱同步的 products、orders）；submit* 方法返回的 Future 在条目最终成功或失败时以 {@link Result} 完成，
+ * 供需要确认的调用方使用，并区分可稍后重试的失败与重试也不会成功的失败。
+ * 指标以 elasticsearch.bulk.* 发布，文档计数按操作的目标索引打 index 标签，缓冲区、在途请求和请求耗时为全部索引共享
+ */
+@Slf4j
+public class BulkIndexer {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private static final int NOT_FOUND = 404;
+
+    private static final int REQUEST_TIMEOUT = 408;
+
+    /**
+     * 攒批线程单次等待上限，保证 close() 能及时结束等待
+     */
+    private static final long MAX_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ElasticsearchClient client;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 不指定索引时写入的用户索引
+     */
+    private final String index;
+
+    private final SearchIndexProperties.Bulk settings;
+
+    private final BlockingQueue<Operation> buffer;
+
+    private final Semaphore inFlight;
+
+    private final ExecutorService senders;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 索引名 -> 该索引的文档计数
+     */
+    private final Map<String, DocumentCounters> documentCounters = new ConcurrentHashMap<>();
+
+    private final Timer requestTimer;
+
+    private volatile boolean running;
+
+    private Thread batcher;
+
+    /**
+     * 单个操作的最终结果
+     */
+    public enum Result {
+        /**
+         * 写入或删除成功
+         */
+        SUCCEEDED,
+        /**
+         * 暂时性失败：缓冲区已满、429重试用尽、5xx、超时或连接异常，稍后重试可能成功
+         */
+        RETRYABLE,
+        /**
+         * 永久性失败：序列化失败或集群以4xx拒绝该条目（如映射冲突），原样重试不会成功
+         */
+        REJECTED
+    }
+
+    /**
+     * 单个索引按结果分类的文档计数
+     */
+    private record DocumentCounters(Counter indexed, Counter failed, Counter dropped, Counter retried) {
+    }
+
+    /**
+     * 待发送的操作，source 为空表示删除；result 为空表示调用方不关心结果
+     */
+    private record Operation(String index, String id, byte[] source, CompletableFuture<Result> result) {
+
+        int size() {
+            return source == null ? 0 : source.length;
+        }
+
+        void complete(Result outcome) {
+            if (result != null) {
+                result.complete(outcome);
+            }
+        }
+    }
+
+    public BulkIndexer(ElasticsearchClient client, ObjectMapper objectMapper, SearchIndexProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.index = properties.getUserIndex();
+        this.settings = properties.getBulk();
+        this.buffer = new ArrayBlockingQueue<>(settings.getBufferCapacity());
+        this.inFlight = new Semaphore(settings.getConcurrentRequests());
+        this.senders = Executors.newFixedThreadPool(settings.getConcurrentRequests(), runnable -> {
+            Thread thread = new Thread(runnable, "es-bulk-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("elasticsearch.bulk.queue.depth", buffer, BlockingQueue::size)
+                .register(meterRegistry);
+        Gauge.builder("elasticsearch.bulk.in_flight", inFlight,
+                        semaphore -> settings.getConcurrentRequests() - semaphore.availablePermits())
+                .register(meterRegistry);
+        this.requestTimer = Timer.builder("elasticsearch.bulk.request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        // 用户索引的计数预先注册，没有写入时也以0发布
+        counters(index);
+    }
+
+    /**
+     * 目标索引的文档计数，首次写入该索引时注册
+     */
+    private DocumentCounters counters(String targetIndex) {
+        return documentCounters.computeIfAbsent(targetIndex, name -> new DocumentCounters(
+                documentCounter(name, "indexed"),
+                documentCounter(name, "failed"),
+                documentCounter(name, "dropped"),
+                documentCounter(name, "retried")));
+    }
+
+    private Counter documentCounter(String targetIndex, String result) {
+        return Counter.builder("elasticsearch.bulk.documents")
+                .tag("index", targetIndex)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        batcher = new Thread(this::runBatcher, "es-bulk-batcher");
+        batcher.setDaemon(true);
+        batcher.start();
+    }
+
+    /**
+     * 停止接收新操作，发送缓冲区中剩余的操作并等待在途请求完成
+     */
+    public synchronized void close() {
+        running = false;
+        try {
+            if (batcher != null) {
+                batcher.join();
+            }
+            senders.shutdown();
+            senders.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 索引（新增或覆盖）一个用户
+     *
+     * @return 是否进入缓冲区，false 表示缓冲区已满被丢弃
+     */
+    public boolean index(User user) {
+        byte[] source = serialize(index, user.getId(), UserDocument.from(user));
+        return source != null && enqueue(new Operation(index, String.valueOf(user.getId()), source, null));
+    }
+
+    /**
+     * 索引一个用户并返回写入结果，供需要确认或限速的调用方（如全量重建）使用
+     *
+     * @return 写入成功时以 SUCCEEDED 完成，否则以 RETRYABLE 或 REJECTED 完成
+     */
+    public CompletableFuture<Result> submitIndex(User user) {
+        return submitIndex(index, user.getId(), UserDocument.from(user));
+    }
+
+    /**
+     * 从索引中删除一个用户
+     */
+    public boolean delete(Long userId) {
+        return enqueue(new Operation(index, String.valueOf(userId), null, null));
+    }
+
+    /**
+     * 把文档写入指定索引
+     *
+     * @return 写入成功时以 SUCCEEDED 完成；序列化失败时以 REJECTED 完成，缓冲区已满时以 RETRYABLE 完成
+     */
+    public CompletableFuture<Result> submitIndex(String targetIndex, Object id, Object document) {
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        byte[] source = serialize(targetIndex, id, document);
+        if (source == null) {
+            result.complete(Result.REJECTED);
+        } else if (!enqueue(new Operation(targetIndex, String.valueOf(id), source, result))) {
+            result.complete(Result.RETRYABLE);
+        }
+        return result;
+    }
+
+    /**
+     * 从指定索引删除文档，文档不存在也视为成功
+     */
+    public CompletableFuture<Result> submitDelete(String targetIndex, Object id) {
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        if (!enqueue(new Operation(targetIndex, String.valueOf(id), null, result))) {
+            result.complete(Result.RETRYABLE);
+        }
+        return result;
+    }
+
+    private byte[] serialize(String targetIndex, Object id, Object document) {
+        try {
+            return objectMapper.writeValueAsBytes(document);
+        } catch (JsonProcessingException e) {
+            counters(targetIndex).failed().increment();
+            log.warn("Failed to serialize document {} for indexing: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean enqueue(Operation operation) {
+        if (running && buffer.offer(operation)) {
+            return true;
+        }
+        counters(operation.index()).dropped().increment();
+        return false;
+    }
+
+    private void runBatcher() {
+        long intervalNanos = settings.getFlushInterval().toNanos();
+        List<Operation> batch = new ArrayList<>();
+        int bytes = 0;
+        long deadline = 0;
+        while (running || !buffer.isEmpty()) {
+            long wait = batch.isEmpty() ? intervalNanos : deadline - System.nanoTime();
+            Operation operation = null;
+            if (wait > 0) {
+                try {
+                    operation = buffer.poll(Math.min(wait, MAX_POLL_NANOS), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (operation != null) {
+                if (batch.isEmpty()) {
+                    deadline = System.nanoTime() + intervalNanos;
+                }
+                batch.add(operation);
+                bytes += operation.size();
+                if (batch.size() < settings.getMaxActions() && bytes < settings.getMaxBytes()) {
+                    continue;
+                }
+            } else if (batch.isEmpty() || System.nanoTime() - deadline < 0) {
+                continue;
+            }
+            // 发送失败时 dispatch 已把这批标记为失败，不能留给下面的收尾再失败一次
+            boolean dispatched = dispatch(batch);
+            batch = new ArrayList<>();
+            bytes = 0;
+            if (!dispatched) {
+                break;
+            }
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    /**
+     * 占用一个在途名额后异步发送，名额用尽时阻塞攒批线程
+     */
+    private boolean dispatch(List<Operation> batch) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(batch, Result.RETRYABLE);
+            return false;
+        }
+        senders.execute(() -> {
+            try {
+                send(batch);
+            } finally {
+                inFlight.release();
+            }
+        });
+        return true;
+    }
+
+    private void send(List<Operation> batch) {
+        List<Operation> pending = batch;
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                if (attempt > settings.getMaxRetries() || !backoff(attempt)) {
+                    fail(pending, Result.RETRYABLE);
+                    log.warn("Giving up on {} documents after {} retries", pending.size(), attempt - 1);
+                    return;
+                }
+                for (Operation operation : pending) {
+                    counters(operation.index()).retried().increment();
+                }
+            }
+            pending = sendOnce(pending);
+        }
+    }
+
+    /**
+     * 发送一次bulk请求，返回需要重试（被429拒绝）的操作
+     */
+    private List<Operation> sendOnce(List<Operation> operations) {
+        long start = System.nanoTime();
+        try {
+            BulkResponse response = client.bulk(buildRequest(operations));
+            List<Operation> rejected = new ArrayList<>();
+            List<BulkResponseItem> items = response.items();
+            for (int i = 0; i < items.size(); i++) {
+                BulkResponseItem item = items.get(i);
+                Operation operation = operations.get(i);
+                if (item.error() == null) {
+                    succeed(operation);
+                } else if (item.status() == TOO_MANY_REQUESTS) {
+                    rejected.add(operation);
+                } else if (operation.source() == null && item.status() == NOT_FOUND) {
+                    // 删除不存在的文档视为成功
+                    succeed(operation);
+                } else {
+                    fail(List.of(operation), resultOf(item.status()));
+                    log.warn("Failed to index document {} into {}: {}", item.id(), item.index(), item.error().reason());
+                }
+            }
+            return rejected;
+        } catch (Exception e) {
+            int status = statusOf(e);
+            if (status == TOO_MANY_REQUESTS) {
+                return operations;
+            }
+            fail(operations, resultOf(status));
+            log.warn("Bulk request with {} operations failed: {}", operations.size(), e.getMessage());
+            return List.of();
+        } finally {
+            requestTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void succeed(Operation operation) {
+        counters(operation.index()).indexed().increment();
+        operation.complete(Result.SUCCEEDED);
+    }
+
+    private void fail(List<Operation> operations, Result result) {
+        for (Operation operation : operations) {
+            counters(operation.index()).failed().increment();
+            operation.complete(result);
+        }
+    }
+
+    /**
+     * 除408外的4xx视为永久性失败；5xx 及没有状态码的异常（超时、连接失败）可重试
+     */
+    private static Result resultOf(int status) {
+        return status >= 400 && status < 500 && status != REQUEST_TIMEOUT ? Result.REJECTED : Result.RETRYABLE;
+    }
+
+    private BulkRequest buildRequest(List<Operation> operations) {
+        BulkRequest.Builder request = new BulkRequest.Builder();
+        for (Operation operation : operations) {
+            if (operation.source() == null) {
+                request.operations(op -> op.delete(d -> d.index(operation.index()).id(operation.id())));
+            } else {
+                BinaryData document = BinaryData.of(operation.source(), "application/json");
+                request.operations(op -> op.index(i -> i.index(operation.index()).id(operation.id()).document(document)));
+            }
+        }
+        return request.build();
+    }
+
+    private boolean backoff(int attempt) {
+        try {
+            Thread.sleep(settings.getInitialBackoff().toMillis() << (attempt - 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static int statusOf(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ElasticsearchException esException) {
+                return esException.status();
+            }
+            if (cause instanceof ResponseException responseException) {
+                return responseException.getResponse().getStatusLine().getStatusCode();
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.elasticsearch;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.http.Header;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.message.BasicHeader;
+import org.elasticsearch.client.RestClientBuilder;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.elasticsearch.RestClientBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Elasticsearch客户端配置
+ * 客户端由Spring Boot自动配置为单例（共享一个带连接池的RestClient），这里只调整连接池和认证；
+ * app.elasticsearch.bulk.enabled=true 时创建批量索引器；
+ * app.elasticsearch.outbox.enabled=true 时注册实体变更监听器和发件箱发送器
+ */
+@Configuration
+@EnableConfigurationProperties(SearchIndexProperties.class)
+public class ElasticsearchConfig {
+
+    @Bean
+    public RestClientBuilderCustomizer searchRestClientCustomizer(SearchIndexProperties properties) {
+        return new RestClientBuilderCustomizer() {
+            @Override
+            public void customize(RestClientBuilder builder) {
+                if (properties.getApiKey() != null && !properties.getApiKey().isEmpty()) {
+                    builder.setDefaultHeaders(new Header[]{
+                            new BasicHeader("Authorization", "ApiKey " + properties.getApiKey())
+                    });
+                }
+            }
+
+            @Override
+            public void customize(HttpAsyncClientBuilder builder) {
+                builder.setMaxConnTotal(properties.getPool().getMaxConnTotal())
+                       .setMaxConnPerRoute(properties.getPool().getMaxConnPerRoute());
+            }
+        };
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "app.elasticsearch.bulk", name = "enabled", havingValue = "true")
+    public BulkIndexer bulkIndexer(ElasticsearchClient client, ObjectMapper objectMapper,
+                                   SearchIndexProperties properties, MeterRegistry meterRegistry) {
+        return new BulkIndexer(client, objectMapper, properties, meterRegistry);
+    }
+
+    @Bean
+    public UserSearchExporter userSearchExporter(ElasticsearchClient client, ObjectMapper objectMapper,
+                                                 SearchIndexProperties properties) {
+        return new UserSearchExporter(client, objectMapper, properties);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "app.elasticsearch.outbox", name = "enabled", havingValue = "true")
+    public SearchOutboxDispatcher searchOutboxDispatcher(EntityManagerFactory entityManagerFactory,
+                                                         BulkIndexer bulkIndexer,
+                                                         SearchIndexProperties properties,
+                                                         MeterRegistry meterRegistry) {
+        SearchOutboxDispatcher dispatcher = new SearchOutboxDispatcher(entityManagerFactory, bulkIndexer,
+                properties, meterRegistry);
+        SearchOutboxListener listener = new SearchOutboxListener(dispatcher::wakeUp);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        return dispatcher;
+    }
+}
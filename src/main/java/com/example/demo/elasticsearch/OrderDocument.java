@@ -0,0 +1,28 @@
+package com.example.demo.elasticsearch;
+
+import com.example.demo.entity.Order;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * orders 索引中的订单文档，用户只保留ID（读取代理的ID不会触发懒加载）
+ */
+public record OrderDocument(
+        Long id,
+        @JsonProperty("order_number") String orderNumber,
+        @JsonProperty("user_id") Long userId,
+        @JsonProperty("total_amount") BigDecimal totalAmount,
+        String status,
+        @JsonProperty("shipping_address") String shippingAddress,
+        @JsonProperty("create_time") LocalDateTime createTime,
+        @JsonProperty("update_time") LocalDateTime updateTime) {
+
+    public static OrderDocument from(Order order) {
+        return new OrderDocument(order.getId(), order.getOrderNumber(),
+                order.getUser() == null ? null : order.getUser().getId(), order.getTotalAmount(),
+                order.getStatus() == null ? null : order.getStatus().name(), order.getShippingAddress(),
+                order.getCreatedAt(), order.getUpdatedAt());
+    }
+}
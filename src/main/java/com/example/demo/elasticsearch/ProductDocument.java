@@ -0,0 +1,30 @@
+package com.example.demo.elasticsearch;
+
+import com.example.demo.entity.Product;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * products 索引中的商品文档，不含成本和关联集合
+ */
+public record ProductDocument(
+        Long id,
+        String sku,
+        String name,
+        String description,
+        String category,
+        BigDecimal price,
+        @JsonProperty("stock_quantity") Integer stockQuantity,
+        String status,
+        @JsonProperty("create_time") LocalDateTime createTime,
+        @JsonProperty("update_time") LocalDateTime updateTime) {
+
+    public static ProductDocument from(Product product) {
+        return new ProductDocument(product.getId(), product.getSku(), product.getName(), product.getDescription(),
+                product.getCategory(), product.getPrice(), product.getStockQuantity(),
+                product.getStatus() == null ? null : product.getStatus().name(),
+                product.getCreatedAt(), product.getUpdatedAt());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo.elasticsearch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Elasticsearch连接池与批量索引配置 - 对应 app.elasticsearch.*
+ * 服务地址、认证和超时沿用 spring.elasticsearch.*
+ */
+@Data
+@ConfigurationProperties(prefix = "app.elasticsearch")
+public class SearchIndexProperties {
+
+    /**
+     * API Key，非空时作为默认请求头 Authorization: ApiKey ...
+     */
+    private String apiKey;
+
+    /**
+     * 用户索引名
+     */
+    private String userIndex = "users";
+
+    /**
+     * 商品索引名
+     */
+    private String productIndex = "products";
+
+    /**
+     * 订单索引名
+     */
+    private String orderIndex = "orders";
+
+    private Pool pool = new Pool();
+
+    private Bulk bulk = new Bulk();
+
+    private Outbox outbox = new Outbox();
+
+    private Export export = new Export();
+
+    @Data
+    public static class Pool {
+
+        /**
+         * 连接池最大连接数
+         */
+        private int maxConnTotal = 50;
+
+        /**
+         * 每个节点最大连接数
+         */
+        private int maxConnPerRoute = 20;
+    }
+
+    @Data
+    public static class Bulk {
+
+        /**
+         * 是否启用批量索引器
+         */
+        private boolean enabled = false;
+
+        /**
+         * 缓冲区容量（待索引文档数），满时丢弃新文档
+         */
+        private int bufferCapacity = 100_000;
+
+        /**
+         * 单个bulk请求最多操作数
+         */
+        private int maxActions = 1_000;
+
+        /**
+         * 单个bulk请求最大文档字节数
+         */
+        private int maxBytes = 5 * 1024 * 1024;
+
+        /**
+         * 未攒满一批时的最长等待时间
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        /**
+         * 同时在途的bulk请求数
+         */
+        private int concurrentRequests = 2;
+
+        /**
+         * 429（集群拒绝）时的最大重试次数
+         */
+        private int maxRetries = 3;
+
+        /**
+         * 首次重试等待时间，之后按2倍递增
+         */
+        private Duration initialBackoff = Duration.ofMillis(100);
+    }
+
+    @Data
+    public static class Outbox {
+
+        /**
+         * 是否把实体变更经发件箱同步到索引，需同时启用 bulk
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每次从发件箱读取的最大行数
+         */
+        private int batchSize = 500;
+
+        /**
+         * 没有提交唤醒时的轮询间隔，也是失败后的重试间隔
+         */
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /**
+         * 等待一批索引结果的最长时间，超时的行留待下次发送
+         */
+        private Duration ackTimeout = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class Export {
+
+        /**
+         * 导出时 point-in-time 的保活时间，需大于写出一页所需的时间
+         */
+        private Duration keepAlive = Duration.ofMinutes(1);
+    }
+}
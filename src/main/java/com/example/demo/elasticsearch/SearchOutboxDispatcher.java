@@ -0,0 +1,292 @@
+package com.example.demo.elasticsearch;
+
+import com.example.demo.entity.Order;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.SearchOutboxEvent;
+import com.example.demo.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 发件箱发送器
+ * 后台线程按主键顺序读取 search_outbox，同一实体的多条变更合并为一次索引操作；
+ * 写入前重新读取实体当前状态（不存在或已软删除则删除文档），经 BulkIndexer 批量发送，
+ * 确认成功后才删除对应行；暂时性失败或超时的行在下个轮询间隔重试，
+ * 永久性失败的行累加失败次数并标记为死信，之后不再读取，避免堵住按主键顺序的队头。
+ * 业务事务只多一次批量插入，索引请求不在事务内执行
+ */
+@Slf4j
+public class SearchOutboxDispatcher {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final BulkIndexer indexer;
+
+    private final SearchIndexProperties properties;
+
+    private final SearchIndexProperties.Outbox settings;
+
+    /**
+     * 提交后的唤醒信号，多次唤醒合并为一次
+     */
+    private final Semaphore signal = new Semaphore(0);
+
+    private final Counter dispatchedEvents;
+    private final Counter coalescedEvents;
+    private final Counter failedEvents;
+    private final Counter deadLetteredEvents;
+
+    private volatile boolean running;
+
+    private Thread worker;
+
+    /**
+     * 合并后的变更：最后一次操作及其覆盖的发件箱行
+     */
+    record Change(String entityType, Long entityId, SearchOutboxEvent.Operation operation, List<Long> outboxIds) {
+    }
+
+    public SearchOutboxDispatcher(EntityManagerFactory entityManagerFactory, BulkIndexer indexer,
+                                  SearchIndexProperties properties, MeterRegistry meterRegistry) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.indexer = indexer;
+        this.properties = properties;
+        this.settings = properties.getOutbox();
+        this.dispatchedEvents = eventCounter(meterRegistry, "dispatched");
+        this.coalescedEvents = eventCounter(meterRegistry, "coalesced");
+        this.failedEvents = eventCounter(meterRegistry, "failed");
+        this.deadLetteredEvents = eventCounter(meterRegistry, "dead_lettered");
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("search.outbox.events")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "search-outbox-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public synchronized void close() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 有新变更提交时调用，让发送器不必等到下一个轮询间隔
+     */
+    public void wakeUp() {
+        if (signal.availablePermits() == 0) {
+            signal.release();
+        }
+    }
+
+    private void run() {
+        // 启动时先发送上次停机前未完成的变更
+        boolean more = true;
+        while (running) {
+            try {
+                if (!more) {
+                    signal.tryAcquire(settings.getPollInterval().toNanos(), TimeUnit.NANOSECONDS);
+                }
+                signal.drainPermits();
+                more = dispatchBatch() == settings.getBatchSize();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                more = false;
+                log.warn("Search outbox dispatch failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 发送一批变更
+     *
+     * @return 读取的行数；有可重试的失败时返回-1，等待下一个轮询间隔再重试
+     */
+    int dispatchBatch() throws InterruptedException {
+        List<SearchOutboxEvent> events = inTransaction(entityManager -> entityManager
+                .createQuery("SELECT e FROM SearchOutboxEvent e WHERE e.deadLetteredAt IS NULL ORDER BY e.id",
+                        SearchOutboxEvent.class)
+                .setMaxResults(settings.getBatchSize())
+                .getResultList());
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<Change> changes = coalesce(events);
+        coalescedEvents.increment(events.size() - changes.size());
+
+        Map<Change, CompletableFuture<BulkIndexer.Result>> results = submit(changes);
+        try {
+            CompletableFuture.allOf(results.values().toArray(new CompletableFuture[0]))
+                    .get(settings.getAckTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            log.warn("Timed out waiting for {} outbox changes to be indexed", changes.size());
+        }
+
+        List<Long> done = new ArrayList<>();
+        List<Long> retryable = new ArrayList<>();
+        List<Long> rejected = new ArrayList<>();
+        for (Map.Entry<Change, CompletableFuture<BulkIndexer.Result>> result : results.entrySet()) {
+            // 超时未完成的按可重试处理
+            BulkIndexer.Result outcome = result.getValue().getNow(BulkIndexer.Result.RETRYABLE);
+            switch (outcome) {
+                case SUCCEEDED -> done.addAll(result.getKey().outboxIds());
+                case RETRYABLE -> retryable.addAll(result.getKey().outboxIds());
+                case REJECTED -> rejected.addAll(result.getKey().outboxIds());
+            }
+        }
+        if (!done.isEmpty()) {
+            inTransaction(entityManager -> entityManager
+                    .createQuery("DELETE FROM SearchOutboxEvent e WHERE e.id IN :ids")
+                    .setParameter("ids", done)
+                    .executeUpdate());
+            dispatchedEvents.increment(done.size());
+        }
+        if (!rejected.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            inTransaction(entityManager -> entityManager
+                    .createQuery("UPDATE SearchOutboxEvent e SET e.attempts = e.attempts + 1, "
+                            + "e.deadLetteredAt = :now WHERE e.id IN :ids")
+                    .setParameter("now", now)
+                    .setParameter("ids", rejected)
+                    .executeUpdate());
+            failedEvents.increment(rejected.size());
+            deadLetteredEvents.increment(rejected.size());
+            log.warn("Dead-lettered {} outbox events rejected by the search cluster: {}", rejected.size(), rejected);
+        }
+        if (!retryable.isEmpty()) {
+            inTransaction(entityManager -> entityManager
+                    .createQuery("UPDATE SearchOutboxEvent e SET e.attempts = e.attempts + 1 WHERE e.id IN :ids")
+                    .setParameter("ids", retryable)
+                    .executeUpdate());
+            failedEvents.increment(retryable.size());
+            return -1;
+        }
+        return events.size();
+    }
+
+    /**
+     * 按实体合并，保持首次出现的顺序，操作取最后一条
+     */
+    static List<Change> coalesce(List<SearchOutboxEvent> events) {
+        Map<String, Change> changes = new LinkedHashMap<>();
+        for (SearchOutboxEvent event : events) {
+            String key = event.getEntityType() + '#' + event.getEntityId();
+            Change previous = changes.get(key);
+            List<Long> ids = previous == null ? new ArrayList<>() : previous.outboxIds();
+            ids.add(event.getId());
+            changes.put(key, new Change(event.getEntityType(), event.getEntityId(), event.getOperation(), ids));
+        }
+        return new ArrayList<>(changes.values());
+    }
+
+    private Map<Change, CompletableFuture<BulkIndexer.Result>> submit(List<Change> changes) {
+        // 需要写入的实体按类型批量读取当前状态
+        Map<String, List<Long>> upsertIds = new HashMap<>();
+        for (Change change : changes) {
+            if (change.operation() == SearchOutboxEvent.Operation.UPSERT) {
+                upsertIds.computeIfAbsent(change.entityType(), type -> new ArrayList<>()).add(change.entityId());
+            }
+        }
+        Map<String, Map<Long, Object>> documents = inTransaction(entityManager -> {
+            Map<String, Map<Long, Object>> loaded = new HashMap<>();
+            upsertIds.forEach((type, ids) -> loaded.put(type, loadDocuments(entityManager, type, ids)));
+            return loaded;
+        });
+
+        Map<Change, CompletableFuture<BulkIndexer.Result>> results = new LinkedHashMap<>();
+        for (Change change : changes) {
+            String index = indexName(change.entityType());
+            if (index == null) {
+                log.warn("No search index for outbox entity type {}", change.entityType());
+                results.put(change, CompletableFuture.completedFuture(BulkIndexer.Result.REJECTED));
+                continue;
+            }
+            Object document = documents.getOrDefault(change.entityType(), Map.of()).get(change.entityId());
+            results.put(change, document == null
+                    ? indexer.submitDelete(index, change.entityId())
+                    : indexer.submitIndex(index, change.entityId(), document));
+        }
+        return results;
+    }
+
+    private Map<Long, Object> loadDocuments(EntityManager entityManager, String entityType, List<Long> ids) {
+        Map<Long, Object> documents = new HashMap<>();
+        switch (entityType) {
+            case "User" -> entityManager.createQuery("SELECT u FROM User u WHERE u.id IN :ids", User.class)
+                    .setParameter("ids", ids).getResultList()
+                    .forEach(user -> documents.put(user.getId(), UserDocument.from(user)));
+            case "Product" -> entityManager.createQuery("SELECT p FROM Product p WHERE p.id IN :ids", Product.class)
+                    .setParameter("ids", ids).getResultList()
+                    .forEach(product -> documents.put(product.getId(), ProductDocument.from(product)));
+            case "Order" -> entityManager.createQuery("SELECT o FROM Order o WHERE o.id IN :ids", Order.class)
+                    .setParameter("ids", ids).getResultList()
+                    .forEach(order -> documents.put(order.getId(), OrderDocument.from(order)));
+            default -> {
+            }
+        }
+        return documents;
+    }
+
+    private String indexName(String entityType) {
+        return switch (entityType) {
+            case "User" -> properties.getUserIndex();
+            case "Product" -> properties.getProductIndex();
+            case "Order" -> properties.getOrderIndex();
+            default -> null;
+        };
+    }
+
+    /**
+     * 使用独立的EntityManager和本地事务，不参与调用线程上的Spring事务
+     */
+    private <T> T inTransaction(Function<EntityManager, T> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            T result = work.apply(entityManager);
+            entityManager.getTransaction().commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.elasticsearch;
+
+import com.example.demo.entity.Order;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.SearchOutboxEvent;
+import com.example.demo.entity.User;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 把 User、Product、Order 的增删改记入 search_outbox
+ * 事件在flush执行SQL后触发，只在内存中按实体合并；事务提交前一次性批量插入发件箱，
+ * 与业务数据同一事务提交或回滚，不会出现"数据已提交但变更丢失"。提交成功后唤醒发送器
+ */
+public class SearchOutboxListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final Set<Class<?>> TRACKED_TYPES = Set.of(User.class, Product.class, Order.class);
+
+    private static final String INSERT_SQL = "INSERT INTO " + SearchOutboxEvent.TABLE_NAME
+            + " (entity_type, entity_id, operation, created_at, attempts) VALUES (?, ?, ?, ?, 0)";
+
+    /**
+     * 会话 -> 本事务待写入的变更
+     */
+    private final Map<EventSource, PendingChanges> pendingBySession = new ConcurrentHashMap<>();
+
+    private final Runnable afterCommit;
+
+    /**
+     * @param afterCommit 有变更的事务提交成功后回调，用于唤醒发送器
+     */
+    public SearchOutboxListener(Runnable afterCommit) {
+        this.afterCommit = afterCommit;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getPersister(), event.getId(), SearchOutboxEvent.Operation.UPSERT);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getSession(), event.getPersister(), event.getId(), SearchOutboxEvent.Operation.UPSERT);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getPersister(), event.getId(), SearchOutboxEvent.Operation.DELETE);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(EventSource session, EntityPersister persister, Object id,
+                        SearchOutboxEvent.Operation operation) {
+        Class<?> type = persister.getMappedClass();
+        if (!TRACKED_TYPES.contains(type) || !(id instanceof Long entityId)) {
+            return;
+        }
+        PendingChanges pending = pendingBySession.computeIfAbsent(session, key -> {
+            PendingChanges changes = new PendingChanges(key);
+            key.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) changes);
+            key.getActionQueue().registerProcess((AfterTransactionCompletionProcess) changes);
+            return changes;
+        });
+        pending.changes.put(new ChangeKey(type.getSimpleName(), entityId), operation);
+    }
+
+    private record ChangeKey(String entityType, Long entityId) {
+    }
+
+    /**
+     * 单个事务内的变更，同一实体多次修改只保留最后一次操作
+     */
+    private final class PendingChanges implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        private final EventSource session;
+
+        private final Map<ChangeKey, SearchOutboxEvent.Operation> changes = new LinkedHashMap<>();
+
+        private PendingChanges(EventSource session) {
+            this.session = session;
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor sessionImplementor) {
+            if (changes.isEmpty()) {
+                return;
+            }
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            sessionImplementor.doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                    for (Map.Entry<ChangeKey, SearchOutboxEvent.Operation> change : changes.entrySet()) {
+                        statement.setString(1, change.getKey().entityType());
+                        statement.setLong(2, change.getKey().entityId());
+                        statement.setString(3, change.getValue().name());
+                        statement.setTimestamp(4, now);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            });
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor sessionImplementor) {
+            pendingBySession.remove(session, this);
+            if (success && !changes.isEmpty()) {
+                afterCommit.run();
+            }
+        }
+    }
+}
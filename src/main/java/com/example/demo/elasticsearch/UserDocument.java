@@ -0,0 +1,26 @@
+package com.example.demo.elasticsearch;
+
+import com.example.demo.entity.User;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+
+/**
+ * users 索引中的用户文档，只包含可检索的基本字段，不含密码和关联集合
+ */
+public record UserDocument(
+        Long id,
+        String username,
+        @JsonProperty("name") String fullName,
+        String email,
+        String phone,
+        String status,
+        @JsonProperty("create_time") LocalDateTime createTime,
+        @JsonProperty("update_time") LocalDateTime updateTime) {
+
+    public static UserDocument from(User user) {
+        return new UserDocument(user.getId(), user.getUsername(), user.getFullName(), user.getEmail(),
+                user.getPhone(), user.getStatus() == null ? null : user.getStatus().name(),
+                user.getCreatedAt(), user.getUpdatedAt());
+    }
+}
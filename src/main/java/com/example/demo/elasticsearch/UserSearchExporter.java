@@ -0,0 +1,180 @@
+package com.example.demo.elasticsearch;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.mapping.FieldType;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * 用户搜索结果导出
+ * 使用 point-in-time 固定数据快照，按 create_time 倒序 + _shard_doc 作为唯一排序，
+ * 以 search_after 逐页读取，每页写完即丢弃，内存占用与结果总数无关，也没有 from+size 的深分页开销。
+ * 总命中数统计可选，关闭时ES无需计数
+ */
+@Slf4j
+public class UserSearchExporter {
+
+    /**
+     * PIT 内置的分片内文档序号，作为排序的唯一决胜字段
+     */
+    private static final String TIEBREAKER_FIELD = "_shard_doc";
+
+    private static final String SORT_FIELD = "create_time";
+
+    private static final int MAX_PAGE_SIZE = 10_000;
+
+    private static final byte NEWLINE = '\n';
+
+    private final ElasticsearchClient client;
+
+    private final ObjectMapper objectMapper;
+
+    private final SearchIndexProperties properties;
+
+    public UserSearchExporter(ElasticsearchClient client, ObjectMapper objectMapper, SearchIndexProperties properties) {
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * 打开PIT并读取第一页，ES不可用等错误在开始写响应前抛出
+     *
+     * @param status         状态精确过滤，可为空
+     * @param name           姓名全文匹配，可为空
+     * @param pageSize       每页条数，最大10000
+     * @param trackTotalHits 是否统计总命中数
+     */
+    public Export open(String status, String name, int pageSize, boolean trackTotalHits) throws IOException {
+        String keepAlive = properties.getExport().getKeepAlive().toSeconds() + "s";
+        String pitId = client.openPointInTime(o -> o
+                .index(properties.getUserIndex())
+                .keepAlive(t -> t.time(keepAlive))).id();
+        Export export = new Export(buildQuery(status, name), Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE),
+                keepAlive, pitId);
+        try {
+            export.fetch(trackTotalHits);
+            return export;
+        } catch (IOException | RuntimeException e) {
+            export.close();
+            throw e;
+        }
+    }
+
+    private static Query buildQuery(String status, String name) {
+        BoolQuery.Builder bool = new BoolQuery.Builder();
+        if (status != null && !status.isEmpty()) {
+            bool.filter(f -> f.term(t -> t.field("status.keyword").value(status)));
+        }
+        if (name != null && !name.isEmpty()) {
+            bool.must(m -> m.match(mt -> mt.field("name").query(name)));
+        }
+        return bool.build()._toQuery();
+    }
+
+    /**
+     * 一次导出，持有PIT和当前页，用完必须关闭以释放PIT
+     */
+    public final class Export implements Closeable {
+
+        private final Query query;
+
+        private final int pageSize;
+
+        private final String keepAlive;
+
+        private String pitId;
+
+        private List<Hit<ObjectNode>> page = List.of();
+
+        private List<FieldValue> searchAfter;
+
+        private Long totalHits;
+
+        private Export(Query query, int pageSize, String keepAlive, String pitId) {
+            this.query = query;
+            this.pageSize = pageSize;
+            this.keepAlive = keepAlive;
+            this.pitId = pitId;
+        }
+
+        /**
+         * 总命中数，未开启统计时为空
+         */
+        public Long totalHits() {
+            return totalHits;
+        }
+
+        /**
+         * 把全部结果按每行一个 _source 写出，每页写完后flush
+         *
+         * @return 写出的文档数
+         */
+        public long writeTo(OutputStream out) throws IOException {
+            long written = 0;
+            while (!page.isEmpty()) {
+                for (Hit<ObjectNode> hit : page) {
+                    if (hit.source() != null) {
+                        out.write(objectMapper.writeValueAsBytes(hit.source()));
+                        out.write(NEWLINE);
+                        written++;
+                    }
+                }
+                out.flush();
+                if (page.size() < pageSize) {
+                    break;
+                }
+                fetch(false);
+            }
+            return written;
+        }
+
+        private void fetch(boolean trackTotal) throws IOException {
+            SearchResponse<ObjectNode> response = client.search(s -> {
+                s.pit(p -> p.id(pitId).keepAlive(t -> t.time(keepAlive)))
+                 .query(query)
+                 .size(pageSize)
+                 .sort(so -> so.field(f -> f.field(SORT_FIELD).order(SortOrder.Desc).unmappedType(FieldType.Date)))
+                 .sort(so -> so.field(f -> f.field(TIEBREAKER_FIELD).order(SortOrder.Desc)))
+                 .trackTotalHits(th -> th.enabled(trackTotal));
+                if (searchAfter != null) {
+                    s.searchAfter(searchAfter);
+                }
+                return s;
+            }, ObjectNode.class);
+
+            if (response.pitId() != null) {
+                pitId = response.pitId();
+            }
+            if (trackTotal && response.hits().total() != null) {
+                totalHits = response.hits().total().value();
+            }
+            page = response.hits().hits();
+            if (!page.isEmpty()) {
+                searchAfter = page.get(page.size() - 1).sort();
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                client.closePointInTime(c -> c.id(pitId));
+            } catch (IOException | RuntimeException e) {
+                // PIT到期后会被ES自动回收
+                log.warn("Failed to close point in time: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -12,6 +12,9 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.Where;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -53,7 +56,9 @@ import java.util.Set;
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "orders_id_generator")
+    @GenericGenerator(name = "orders_id_generator", type = PooledLoSequenceGenerator.class,
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "orders_seq"))
     private Long id;
     
     @Column(name = "order_number", nullable = false, unique = true, length = 50)
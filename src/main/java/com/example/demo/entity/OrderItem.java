@@ -10,6 +10,9 @@ import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -31,7 +34,9 @@ import java.time.LocalDateTime;
 public class OrderItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "order_items_id_generator")
+    @GenericGenerator(name = "order_items_id_generator", type = PooledLoSequenceGenerator.class,
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "order_items_seq"))
     private Long id;
     
     @Column(name = "product_id", nullable = false)
@@ -10,6 +10,9 @@ import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -42,7 +45,9 @@ import java.util.Set;
 public class Permission {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "permissions_id_generator")
+    @GenericGenerator(name = "permissions_id_generator", type = PooledLoSequenceGenerator.class,
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "permissions_seq"))
     private Long id;
     
     @Column(name = "code", nullable = false, unique = true, length = 100)
@@ -13,6 +13,9 @@ import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.Where;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -49,7 +52,9 @@ import java.util.Set;
 public class Product {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "products_id_generator")
+    @GenericGenerator(name = "products_id_generator", type = PooledLoSequenceGenerator.class,
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "products_seq"))
     private Long id;
     
     @Column(name = "sku", nullable = false, unique = true, length = 50)
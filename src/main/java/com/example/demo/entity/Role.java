@@ -6,10 +6,14 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.time.LocalDateTime;
@@ -43,7 +47,9 @@ import java.util.Set;
 public class Role {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "roles_id_generator")
+    @GenericGenerator(name = "roles_id_generator", type = PooledLoSequenceGenerator.class,
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "roles_seq"))
     private Long id;
     
     @Column(name = "name", nullable = false, unique = true, length = 50)
@@ -76,8 +82,9 @@ public class Role {
     @JsonIgnore
     private Set<User> users = new HashSet<>();
     
-    // 多对多关联：角色-权限
+    // 多对多关联：角色-权限（按批次初始化多个角色的权限）
     @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @BatchSize(size = 50)
     @JoinTable(
         name = "role_permissions",
         joinColumns = @JoinColumn(name = "role_id"),
@@ -0,0 +1,63 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 搜索索引发件箱 - 记录需要同步到Elasticsearch的实体变更
+ * 由 SearchOutboxListener 在业务事务提交前用JDBC批量写入，与业务数据同事务提交；
+ * SearchOutboxDispatcher 确认索引成功后才删除，进程崩溃时未发送的变更仍留在表中；
+ * 被集群永久拒绝的行标记 dead_lettered_at 后保留，不再发送，也不阻塞后面的行
+ */
+@Entity
+@Table(name = "search_outbox", indexes = {
+    @Index(name = "idx_search_outbox_entity", columnList = "entity_type, entity_id")
+})
+@Data
+@NoArgsConstructor
+public class SearchOutboxEvent {
+
+    public static final String TABLE_NAME = "search_outbox";
+
+    /**
+     * 自增主键，按写入顺序递增，行由监听器直接用JDBC插入
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 实体名，如 User、Product、Order
+     */
+    @Column(name = "entity_type", nullable = false, length = 50)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", nullable = false, length = 10)
+    private Operation operation;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 发送失败的次数
+     */
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    /**
+     * 被永久拒绝（如4xx、未知实体类型）的时间，非空的行留待人工处理
+     */
+    @Column(name = "dead_lettered_at")
+    private LocalDateTime deadLetteredAt;
+
+    public enum Operation {
+        UPSERT, DELETE
+    }
+}
@@ -6,13 +6,19 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Filter;
 import org.hibernate.annotations.FilterDef;
 import org.hibernate.annotations.ParamDef;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -53,7 +59,9 @@ import java.util.Set;
 public class User {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "users_id_generator")
+    @GenericGenerator(name = "users_id_generator", type = PooledLoSequenceGenerator.class,
+        parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "users_seq"))
     private Long id;
     
     @Column(name = "username", nullable = false, unique = true, length = 50)
@@ -83,8 +91,9 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
-    // 多对多关联：用户-角色
+    // 多对多关联：用户-角色（延迟加载时按批次一次初始化多个用户的角色）
     @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @BatchSize(size = 50)
     @JoinTable(
         name = "user_roles",
         joinColumns = @JoinColumn(name = "user_id"),
@@ -93,13 +102,15 @@ public class User {
     @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<Role> roles = new HashSet<>();
     
-    // 一对多关联：用户-用户档案（演示一对多关系）
+    // 一对多关联：用户-用户档案（演示一对多关系，SUBSELECT：初始化一个即用一条子查询加载同一查询结果中所有用户的档案）
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @Fetch(FetchMode.SUBSELECT)
     @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<UserProfile> userProfiles = new HashSet<>();
     
-    // 一对多关联：用户-订单（演示延迟加载）
+    // 一对多关联：用户-订单（演示延迟加载，SUBSELECT 同上）
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @Fetch(FetchMode.SUBSELECT)
     @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private Set<Order> orders = new HashSet<>();
     
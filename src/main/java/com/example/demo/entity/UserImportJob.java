@@ -0,0 +1,60 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户导入任务断点
+ * 由 UserImportService 在每个块的事务中随用户数据一起更新，提交成功则已导入行数与数据同时生效，
+ * 回滚则两者都不生效；进程重启后仍可据此续传。
+ * owner 和 heartbeat_at 标识当前执行者，状态切换和断点更新都以条件更新完成
+ */
+@Entity
+@Table(name = "user_import_jobs")
+@Data
+@NoArgsConstructor
+public class UserImportJob {
+
+    @Id
+    @Column(name = "job_id", length = 36)
+    private String jobId;
+
+    /**
+     * UserImportService.JobState 的名称
+     */
+    @Column(name = "state", nullable = false, length = 10)
+    private String state;
+
+    /**
+     * 当前执行该任务的服务实例
+     */
+    @Column(name = "owner_id", length = 36)
+    private String owner;
+
+    /**
+     * 执行者最近一次写入断点的时间，过期的 RUNNING 任务视为中断
+     */
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "rows_committed", nullable = false)
+    private long rowsCommitted;
+
+    @Column(name = "chunks_committed", nullable = false)
+    private long chunksCommitted;
+
+    @Column(name = "resume_count", nullable = false)
+    private int resumeCount;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,45 @@
+package com.example.demo.influxdb;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.influxdb.dto.Point;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求耗时写入InfluxDB，measurement为 http_requests，按请求方法、URI模板和状态码打标签
+ */
+public class InfluxRequestMetricsInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = InfluxRequestMetricsInterceptor.class.getName() + ".start";
+
+    private final InfluxWritePipeline pipeline;
+
+    public InfluxRequestMetricsInterceptor(InfluxWritePipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (!(start instanceof Long startNanos)) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        pipeline.write(Point.measurement("http_requests")
+                .time(System.currentTimeMillis(), TimeUnit.MILLISECONDS)
+                .tag("method", request.getMethod())
+                .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                .tag("status", String.valueOf(response.getStatus()))
+                .addField("duration_ms", (System.nanoTime() - startNanos) / 1_000_000.0)
+                .build());
+    }
+}
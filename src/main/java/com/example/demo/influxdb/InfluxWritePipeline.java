@@ -0,0 +1,215 @@
+package com.example.demo.influxdb;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.influxdb.InfluxDB;
+import org.influxdb.dto.Point;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InfluxDB异步批量写入管道
+ * 调用线程只把数据点编码为行协议放入有界环形缓冲区，缓冲区满时按 overflowPolicy 丢弃或短暂阻塞；
+ * 单个后台线程按条数、UTF-8字节数或时间间隔攒批，一次HTTP请求写入一批（可gzip）。
+ * 队列深度、各结果的点数、批大小和刷写耗时以 influxdb.write.* 指标发布
+ */
+@Slf4j
+public class InfluxWritePipeline {
+
+    private final InfluxWriteProperties properties;
+
+    private final InfluxDB influxDB;
+
+    private final BlockingQueue<String> buffer;
+
+    private final Counter writtenPoints;
+    private final Counter droppedPoints;
+    private final Counter failedPoints;
+    private final DistributionSummary batchPoints;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+
+    private Thread flusher;
+
+    public InfluxWritePipeline(InfluxWriteProperties properties, InfluxDB influxDB, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.influxDB = influxDB;
+        this.buffer = new ArrayBlockingQueue<>(properties.getBufferCapacity());
+
+        Gauge.builder("influxdb.write.queue.depth", buffer, BlockingQueue::size)
+                .description("Points waiting in the InfluxDB write buffer")
+                .register(meterRegistry);
+        Gauge.builder("influxdb.write.queue.capacity", properties, InfluxWriteProperties::getBufferCapacity)
+                .register(meterRegistry);
+        this.writtenPoints = pointCounter(meterRegistry, "written");
+        this.droppedPoints = pointCounter(meterRegistry, "dropped");
+        this.failedPoints = pointCounter(meterRegistry, "failed");
+        this.batchPoints = DistributionSummary.builder("influxdb.write.batch.points")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("influxdb.write.flush")
+                .description("Latency of one batched write request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Counter pointCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("influxdb.write.points")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "influxdb-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("InfluxDB write pipeline started: {} / {} (batch {} points, {} bytes, every {})",
+                properties.getUrl(), properties.getDatabase(), properties.getBatchSize(),
+                properties.getBatchBytes(), properties.getFlushInterval());
+    }
+
+    /**
+     * 停止接收新数据点，刷出缓冲区剩余数据后关闭客户端
+     */
+    public synchronized void close() {
+        running = false;
+        if (flusher != null) {
+            try {
+                flusher.join(properties.getReadTimeout().toMillis() + properties.getFlushInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        influxDB.close();
+    }
+
+    /**
+     * 写入一个数据点，不阻塞（BLOCK 策略下至多阻塞 offerTimeout）
+     *
+     * @return 是否进入缓冲区，false 表示被丢弃
+     */
+    public boolean write(Point point) {
+        return enqueue(point.lineProtocol(TimeUnit.MILLISECONDS));
+    }
+
+    boolean enqueue(String line) {
+        boolean accepted;
+        switch (properties.getOverflowPolicy()) {
+            case DROP_OLDEST:
+                while (!(accepted = buffer.offer(line))) {
+                    if (buffer.poll() != null) {
+                        droppedPoints.increment();
+                    }
+                }
+                break;
+            case BLOCK:
+                try {
+                    accepted = buffer.offer(line, properties.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    accepted = false;
+                }
+                break;
+            default:
+                accepted = buffer.offer(line);
+        }
+        if (!accepted) {
+            droppedPoints.increment();
+        }
+        return accepted;
+    }
+
+    int queueDepth() {
+        return buffer.size();
+    }
+
+    private void runFlusher() {
+        long intervalNanos = properties.getFlushInterval().toNanos();
+        StringBuilder batch = new StringBuilder();
+        int points = 0;
+        int bytes = 0;
+        long deadline = 0;
+        while (running || !buffer.isEmpty()) {
+            long wait = points == 0 ? intervalNanos : deadline - System.nanoTime();
+            String line = null;
+            if (wait > 0) {
+                try {
+                    line = buffer.poll(wait, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (line != null) {
+                if (points == 0) {
+                    deadline = System.nanoTime() + intervalNanos;
+                } else {
+                    batch.append('\n');
+                    bytes++;
+                }
+                batch.append(line);
+                bytes += utf8Length(line);
+                points++;
+                if (points < properties.getBatchSize() && bytes < properties.getBatchBytes()) {
+                    continue;
+                }
+            } else if (points == 0 || System.nanoTime() < deadline) {
+                continue;
+            }
+            flush(batch, points);
+            batch.setLength(0);
+            points = 0;
+            bytes = 0;
+        }
+        if (points > 0) {
+            flush(batch, points);
+        }
+    }
+
+    /**
+     * 按UTF-8编码后的字节数，不实际编码；行协议中的标签值和字符串字段可能含非ASCII字符
+     */
+    static int utf8Length(CharSequence text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void flush(StringBuilder batch, int points) {
+        long start = System.nanoTime();
+        try {
+            influxDB.write(properties.getDatabase(), properties.getRetentionPolicy(),
+                    InfluxDB.ConsistencyLevel.ONE, TimeUnit.MILLISECONDS, batch.toString());
+            writtenPoints.increment(points);
+        } catch (Exception e) {
+            failedPoints.increment(points);
+            log.warn("Failed to write {} points to InfluxDB: {}", points, e.getMessage());
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchPoints.record(points);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.influxdb;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * InfluxDB写入管道配置 - 对应 app.influxdb.*
+ */
+@Data
+@ConfigurationProperties(prefix = "app.influxdb")
+public class InfluxWriteProperties {
+
+    /**
+     * 是否启用写入管道，关闭时不创建客户端
+     */
+    private boolean enabled = false;
+
+    private String url = "http://127.0.0.1:8086";
+
+    private String username = "root";
+
+    private String password = "";
+
+    private String database = "app_metrics";
+
+    private String retentionPolicy = "autogen";
+
+    /**
+     * 环形缓冲区容量（数据点个数）
+     */
+    private int bufferCapacity = 10_000;
+
+    /**
+     * 单批最多数据点数
+     */
+    private int batchSize = 1_000;
+
+    /**
+     * 单批最大字节数（行协议的UTF-8字节数，不含gzip压缩）
+     */
+    private int batchBytes = 512 * 1024;
+
+    /**
+     * 未攒满一批时的最长等待时间
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 请求体是否gzip压缩
+     */
+    private boolean gzip = true;
+
+    /**
+     * 缓冲区满时的处理策略
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+    /**
+     * BLOCK 策略下最长阻塞时间，超时后丢弃
+     */
+    private Duration offerTimeout = Duration.ofMillis(10);
+
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    public enum OverflowPolicy {
+        /**
+         * 丢弃新写入的数据点
+         */
+        DROP_NEWEST,
+        /**
+         * 丢弃缓冲区中最早的数据点
+         */
+        DROP_OLDEST,
+        /**
+         * 阻塞写入线程至多 offerTimeout，仍无空间则丢弃
+         */
+        BLOCK
+    }
+}
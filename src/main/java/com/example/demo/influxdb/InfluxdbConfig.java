@@ -0,0 +1,48 @@
+package com.example.demo.influxdb;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.OkHttpClient;
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * InfluxDB指标写入配置，app.influxdb.enabled=true 时生效
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.influxdb", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(InfluxWriteProperties.class)
+public class InfluxdbConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public InfluxWritePipeline influxWritePipeline(InfluxWriteProperties properties, MeterRegistry meterRegistry) {
+        OkHttpClient.Builder httpClient = new OkHttpClient.Builder()
+                .connectTimeout(properties.getConnectTimeout())
+                .readTimeout(properties.getReadTimeout());
+        InfluxDB influxDB = InfluxDBFactory.connect(properties.getUrl(), properties.getUsername(),
+                properties.getPassword(), httpClient);
+        if (properties.isGzip()) {
+            influxDB.enableGzip();
+        }
+        return new InfluxWritePipeline(properties, influxDB, meterRegistry);
+    }
+
+    /**
+     * 记录 /api/** 请求耗时
+     */
+    @Bean
+    public WebMvcConfigurer influxRequestMetricsConfigurer(InfluxWritePipeline influxWritePipeline) {
+        InfluxRequestMetricsInterceptor interceptor = new InfluxRequestMetricsInterceptor(influxWritePipeline);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor).addPathPatterns("/api/**");
+            }
+        };
+    }
+}
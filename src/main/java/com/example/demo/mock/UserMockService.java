@@ -5,6 +5,7 @@ import com.example.demo.entity.User.UserStatus;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * 用户Mock服务接口
@@ -22,6 +23,11 @@ public interface UserMockService {
      */
     List<User> generateMockUsers(int count);
     
+    /**
+     * 并行生成指定数量的Mock用户列表，seed 不为空时生成可复现的数据
+     */
+    List<User> generateMockUsers(int count, Long seed);
+    
     /**
      * 根据ID获取Mock用户
      */
@@ -37,6 +43,11 @@ public interface UserMockService {
      */
     List<User> getAllMockUsers();
     
+    /**
+     * 逐个遍历所有Mock用户，不生成完整列表
+     */
+    void forEachMockUser(Consumer<? super User> action);
+    
     /**
      * 根据状态获取Mock用户列表
      */
@@ -47,6 +58,11 @@ public interface UserMockService {
      */
     User createMockUser(User user);
     
+    /**
+     * 批量创建Mock用户，返回创建数量
+     */
+    int createMockUsers(List<User> users);
+    
     /**
      * 更新Mock用户
      */
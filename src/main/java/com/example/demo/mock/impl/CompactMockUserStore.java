@@ -0,0 +1,631 @@
+package com.example.demo.mock.impl;
+
+import com.example.demo.entity.User;
+import com.example.demo.entity.User.UserStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 紧凑存储：字段按列保存在基本类型数组中，字符串字段按UTF-8打包成每个用户一个byte[]，
+ * long主键经开放寻址表映射到槽位，读取时才组装User对象。
+ * 用户名、邮箱索引同样是只保存哈希和槽位的基本类型表，比较键和移除旧键时直接读取打包的字节；
+ * 状态只维护计数，按状态查询扫描 statuses 列。
+ * 每个用户只占一个byte[]和若干数组元素，而不是User及其Long、LocalDateTime、String和三个空HashSet。
+ * 返回的User是副本，修改后需调用 updateMockUser 写回
+ */
+final class CompactMockUserStore implements MockUserStore {
+
+    private static final int EMPTY = -1;
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final UserStatus[] STATUSES = UserStatus.values();
+
+    /**
+     * 打包字节中用户名、邮箱字段的序号
+     */
+    private static final int USERNAME = 0;
+    private static final int EMAIL = 1;
+
+    /**
+     * forEach 每次持有读锁组装的用户数，回调在锁外执行，慢消费者不会阻塞写入
+     */
+    private static final int FOREACH_CHUNK = 256;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final int initialCapacity;
+
+    /**
+     * 主键 -> 槽位，线性探测，EMPTY 表示空桶
+     */
+    private long[] tableKeys;
+    private int[] tableSlots;
+    private int tableMask;
+
+    /**
+     * 按槽位存储的列，texts[slot] 为空表示该槽位未使用
+     */
+    private long[] ids;
+    private byte[] statuses;
+    private long[] createdSeconds;
+    private int[] createdNanos;
+    private long[] updatedSeconds;
+    private int[] updatedNanos;
+    private byte[][] texts;
+
+    private int slotCount;
+    private int[] freeSlots;
+    private int freeCount;
+    private int size;
+
+    private KeyIndex usernames;
+    private KeyIndex emails;
+    private int[] statusCounts;
+
+    CompactMockUserStore(int initialCapacity) {
+        this.initialCapacity = Math.max(16, initialCapacity);
+        reset();
+    }
+
+    @Override
+    public User get(long id) {
+        lock.readLock().lock();
+        try {
+            int bucket = find(id);
+            return bucket < 0 ? null : materialize(tableSlots[bucket]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(User user) {
+        long id = user.getId();
+        byte[] packed = pack(user.getUsername(), user.getEmail(), user.getPassword(), user.getFullName(), user.getPhone());
+        lock.writeLock().lock();
+        try {
+            int bucket = find(id);
+            int slot;
+            if (bucket >= 0) {
+                slot = tableSlots[bucket];
+                unindex(slot);
+            } else {
+                slot = allocateSlot();
+                insert(id, slot);
+                size++;
+            }
+            ids[slot] = id;
+            statuses[slot] = user.getStatus() == null ? -1 : (byte) user.getStatus().ordinal();
+            createdSeconds[slot] = seconds(user.getCreatedAt());
+            createdNanos[slot] = nanos(user.getCreatedAt());
+            updatedSeconds[slot] = seconds(user.getUpdatedAt());
+            updatedNanos[slot] = nanos(user.getUpdatedAt());
+            texts[slot] = packed;
+            index(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public User remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int bucket = find(id);
+            if (bucket < 0) {
+                return null;
+            }
+            int slot = tableSlots[bucket];
+            User removed = materialize(slot);
+            unindex(slot);
+            delete(bucket);
+            texts[slot] = null;
+            freeSlots[freeCount++] = slot;
+            size--;
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return find(id) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Long findIdByUsername(String username) {
+        return findId(usernames, username);
+    }
+
+    @Override
+    public Long findIdByEmail(String email) {
+        return findId(emails, email);
+    }
+
+    private Long findId(KeyIndex index, String key) {
+        if (key == null) {
+            return null;
+        }
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        lock.readLock().lock();
+        try {
+            int slot = index.get(bytes);
+            return slot == EMPTY ? null : ids[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> findByStatus(UserStatus status) {
+        byte ordinal = (byte) status.ordinal();
+        lock.readLock().lock();
+        try {
+            List<User> users = new ArrayList<>(statusCounts[ordinal]);
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (texts[slot] != null && statuses[slot] == ordinal) {
+                    users.add(materialize(slot));
+                }
+            }
+            return users;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int countByStatus(UserStatus status) {
+        lock.readLock().lock();
+        try {
+            return statusCounts[status.ordinal()];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> values() {
+        lock.readLock().lock();
+        try {
+            List<User> users = new ArrayList<>(size);
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (texts[slot] != null) {
+                    users.add(materialize(slot));
+                }
+            }
+            return users;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super User> action) {
+        List<User> chunk = new ArrayList<>(FOREACH_CHUNK);
+        int next = 0;
+        while (true) {
+            lock.readLock().lock();
+            try {
+                while (next < slotCount && chunk.size() < FOREACH_CHUNK) {
+                    if (texts[next] != null) {
+                        chunk.add(materialize(next));
+                    }
+                    next++;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (chunk.isEmpty()) {
+                return;
+            }
+            chunk.forEach(action);
+            chunk.clear();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reset() {
+        int tableSize = Integer.highestOneBit(initialCapacity * 2 - 1) << 1;
+        tableKeys = new long[tableSize];
+        tableSlots = new int[tableSize];
+        Arrays.fill(tableSlots, EMPTY);
+        tableMask = tableSize - 1;
+
+        ids = new long[initialCapacity];
+        statuses = new byte[initialCapacity];
+        createdSeconds = new long[initialCapacity];
+        createdNanos = new int[initialCapacity];
+        updatedSeconds = new long[initialCapacity];
+        updatedNanos = new int[initialCapacity];
+        texts = new byte[initialCapacity][];
+        freeSlots = new int[initialCapacity];
+        slotCount = 0;
+        freeCount = 0;
+        size = 0;
+
+        usernames = new KeyIndex(USERNAME, tableSize);
+        emails = new KeyIndex(EMAIL, tableSize);
+        statusCounts = new int[STATUSES.length];
+    }
+
+    private User materialize(int slot) {
+        String[] values = unpack(texts[slot]);
+        User user = new User();
+        user.setId(ids[slot]);
+        user.setUsername(values[0]);
+        user.setEmail(values[1]);
+        user.setPassword(values[2]);
+        user.setFullName(values[3]);
+        user.setPhone(values[4]);
+        user.setStatus(statuses[slot] < 0 ? null : STATUSES[statuses[slot]]);
+        user.setCreatedAt(time(createdSeconds[slot], createdNanos[slot]));
+        user.setUpdatedAt(time(updatedSeconds[slot], updatedNanos[slot]));
+        return user;
+    }
+
+    // ---- 主键表 ----
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int find(long id) {
+        int bucket = hash(id) & tableMask;
+        while (tableSlots[bucket] != EMPTY) {
+            if (tableKeys[bucket] == id) {
+                return bucket;
+            }
+            bucket = (bucket + 1) & tableMask;
+        }
+        return -1;
+    }
+
+    private void insert(long id, int slot) {
+        if ((size + 1) * 2 > tableKeys.length) {
+            rehash(tableKeys.length * 2);
+        }
+        int bucket = hash(id) & tableMask;
+        while (tableSlots[bucket] != EMPTY) {
+            bucket = (bucket + 1) & tableMask;
+        }
+        tableKeys[bucket] = id;
+        tableSlots[bucket] = slot;
+    }
+
+    /**
+     * 线性探测的回移删除，后续同簇的元素前移填补空位，无需墓碑
+     */
+    private void delete(int bucket) {
+        int hole = bucket;
+        int next = (hole + 1) & tableMask;
+        while (tableSlots[next] != EMPTY) {
+            int home = hash(tableKeys[next]) & tableMask;
+            if (((next - home) & tableMask) >= ((next - hole) & tableMask)) {
+                tableKeys[hole] = tableKeys[next];
+                tableSlots[hole] = tableSlots[next];
+                hole = next;
+            }
+            next = (next + 1) & tableMask;
+        }
+        tableSlots[hole] = EMPTY;
+    }
+
+    private void rehash(int newSize) {
+        long[] oldKeys = tableKeys;
+        int[] oldSlots = tableSlots;
+        tableKeys = new long[newSize];
+        tableSlots = new int[newSize];
+        Arrays.fill(tableSlots, EMPTY);
+        tableMask = newSize - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != EMPTY) {
+                int bucket = hash(oldKeys[i]) & tableMask;
+                while (tableSlots[bucket] != EMPTY) {
+                    bucket = (bucket + 1) & tableMask;
+                }
+                tableKeys[bucket] = oldKeys[i];
+                tableSlots[bucket] = oldSlots[i];
+            }
+        }
+    }
+
+    // ---- 用户名、邮箱和状态索引 ----
+
+    /**
+     * 按槽位中当前的值建立索引，须在写入 texts[slot] 和 statuses[slot] 之后调用
+     */
+    private void index(int slot) {
+        usernames.add(slot);
+        emails.add(slot);
+        if (statuses[slot] >= 0) {
+            statusCounts[statuses[slot]]++;
+        }
+    }
+
+    /**
+     * 按槽位中旧的值移除索引，须在覆盖或清空 texts[slot] 和 statuses[slot] 之前调用
+     */
+    private void unindex(int slot) {
+        usernames.remove(slot);
+        emails.remove(slot);
+        if (statuses[slot] >= 0) {
+            statusCounts[statuses[slot]]--;
+        }
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+        int h = 1;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + bytes[i];
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 打包字节中某个字符串字段 -> 槽位的开放寻址表，线性探测，只保存键的哈希和槽位，
+     * 键本身从 texts[slot] 中按字段读取，因此索引不为每个用户持有任何对象。
+     * 同键的多个槽位都留在表中，沿探测链按最近写入在前排列，删除最近写入者后查找回退到下一个
+     */
+    private final class KeyIndex {
+
+        private final int field;
+        private int[] hashes;
+        private int[] slots;
+        private int mask;
+        private int count;
+
+        KeyIndex(int field, int tableSize) {
+            this.field = field;
+            hashes = new int[tableSize];
+            slots = new int[tableSize];
+            Arrays.fill(slots, EMPTY);
+            mask = tableSize - 1;
+        }
+
+        /**
+         * 按UTF-8编码的键查找槽位，不存在时返回EMPTY
+         */
+        int get(byte[] key) {
+            int h = hash(key, 0, key.length);
+            for (int bucket = h & mask; slots[bucket] != EMPTY; bucket = (bucket + 1) & mask) {
+                if (hashes[bucket] == h && keyEquals(slots[bucket], key, 0, key.length)) {
+                    return slots[bucket];
+                }
+            }
+            return EMPTY;
+        }
+
+        /**
+         * 为槽位中的键建立索引，该槽位排在同键的其他槽位之前：
+         * 沿探测链把同键的槽位依次后移一位，最早写入的移到链尾的空桶
+         */
+        void add(int slot) {
+            byte[] packed = texts[slot];
+            int from = fieldOffset(packed, field);
+            int length = readInt(packed, from);
+            if (length < 0) {
+                return;
+            }
+            from += Integer.BYTES;
+            int h = hash(packed, from, from + length);
+            int carry = slot;
+            int bucket = h & mask;
+            while (slots[bucket] != EMPTY) {
+                if (hashes[bucket] == h && keyEquals(slots[bucket], packed, from, length)) {
+                    int older = slots[bucket];
+                    slots[bucket] = carry;
+                    carry = older;
+                }
+                bucket = (bucket + 1) & mask;
+            }
+            if ((count + 1) * 2 > slots.length) {
+                rehash(slots.length * 2);
+                bucket = h & mask;
+                while (slots[bucket] != EMPTY) {
+                    bucket = (bucket + 1) & mask;
+                }
+            }
+            hashes[bucket] = h;
+            slots[bucket] = carry;
+            count++;
+        }
+
+        /**
+         * 只移除该槽位自己的索引项，同键的其他槽位保持原有顺序
+         */
+        void remove(int slot) {
+            byte[] packed = texts[slot];
+            int from = fieldOffset(packed, field);
+            int length = readInt(packed, from);
+            if (length < 0) {
+                return;
+            }
+            from += Integer.BYTES;
+            int h = hash(packed, from, from + length);
+            for (int bucket = h & mask; slots[bucket] != EMPTY; bucket = (bucket + 1) & mask) {
+                if (slots[bucket] == slot) {
+                    delete(bucket);
+                    count--;
+                    return;
+                }
+            }
+        }
+
+        private boolean keyEquals(int slot, byte[] key, int from, int length) {
+            byte[] packed = texts[slot];
+            int offset = fieldOffset(packed, field);
+            int stored = readInt(packed, offset);
+            offset += Integer.BYTES;
+            return stored == length && Arrays.equals(packed, offset, offset + length, key, from, from + length);
+        }
+
+        /**
+         * 与主键表相同的回移删除，归属桶由保存的哈希计算；同键的槽位归属桶相同，回移不改变其先后
+         */
+        private void delete(int bucket) {
+            int hole = bucket;
+            int next = (hole + 1) & mask;
+            while (slots[next] != EMPTY) {
+                int home = hashes[next] & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    hashes[hole] = hashes[next];
+                    slots[hole] = slots[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            slots[hole] = EMPTY;
+        }
+
+        /**
+         * 从一个空桶之后开始按探测顺序重新插入，跨越数组末尾的探测链也保持同键槽位的先后
+         */
+        private void rehash(int newSize) {
+            int[] oldHashes = hashes;
+            int[] oldSlots = slots;
+            int start = 0;
+            while (oldSlots[start] != EMPTY) {
+                start++;
+            }
+            hashes = new int[newSize];
+            slots = new int[newSize];
+            Arrays.fill(slots, EMPTY);
+            mask = newSize - 1;
+            for (int n = 1; n <= oldSlots.length; n++) {
+                int i = (start + n) & (oldSlots.length - 1);
+                if (oldSlots[i] != EMPTY) {
+                    int bucket = oldHashes[i] & mask;
+                    while (slots[bucket] != EMPTY) {
+                        bucket = (bucket + 1) & mask;
+                    }
+                    hashes[bucket] = oldHashes[i];
+                    slots[bucket] = oldSlots[i];
+                }
+            }
+        }
+    }
+
+    // ---- 槽位 ----
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            createdSeconds = Arrays.copyOf(createdSeconds, capacity);
+            createdNanos = Arrays.copyOf(createdNanos, capacity);
+            updatedSeconds = Arrays.copyOf(updatedSeconds, capacity);
+            updatedNanos = Arrays.copyOf(updatedNanos, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            freeSlots = Arrays.copyOf(freeSlots, capacity);
+        }
+        return slotCount++;
+    }
+
+    // ---- 编码 ----
+
+    /**
+     * 每个字段写为 int长度 + UTF-8字节，长度为-1表示null
+     */
+    private static byte[] pack(String... values) {
+        byte[][] encoded = new byte[values.length][];
+        int length = 0;
+        for (int i = 0; i < values.length; i++) {
+            length += Integer.BYTES;
+            if (values[i] != null) {
+                encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+                length += encoded[i].length;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] value : encoded) {
+            if (value == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(value.length).put(value);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static String[] unpack(byte[] packed) {
+        String[] values = new String[5];
+        int offset = 0;
+        for (int i = 0; i < values.length; i++) {
+            int length = readInt(packed, offset);
+            offset += Integer.BYTES;
+            if (length >= 0) {
+                values[i] = new String(packed, offset, length, StandardCharsets.UTF_8);
+                offset += length;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 第 field 个字段长度前缀的偏移
+     */
+    private static int fieldOffset(byte[] packed, int field) {
+        int offset = 0;
+        for (int i = 0; i < field; i++) {
+            offset += Integer.BYTES + Math.max(readInt(packed, offset), 0);
+        }
+        return offset;
+    }
+
+    private static int readInt(byte[] packed, int offset) {
+        return (packed[offset] << 24) | ((packed[offset + 1] & 0xFF) << 16)
+                | ((packed[offset + 2] & 0xFF) << 8) | (packed[offset + 3] & 0xFF);
+    }
+
+    private static long seconds(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static int nanos(LocalDateTime time) {
+        return time == null ? 0 : time.getNano();
+    }
+
+    private static LocalDateTime time(long seconds, int nanos) {
+        return seconds == NO_TIME ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.demo.mock.impl;
+
+import com.example.demo.entity.User;
+import com.example.demo.entity.User.UserStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 堆内存储，直接保存User对象，读取返回的是存储中的同一实例
+ * 用户名、邮箱索引和状态分桶使用并发Map，读操作无锁
+ */
+class HeapMockUserStore implements MockUserStore {
+
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    /**
+     * 键 -> 持有该键的用户ID，按写入先后排列；数组不可变，写入时整体替换，读取无锁
+     */
+    private final Map<String, long[]> usernameIndex = new ConcurrentHashMap<>();
+    private final Map<String, long[]> emailIndex = new ConcurrentHashMap<>();
+    private final Map<UserStatus, Set<Long>> statusBuckets = new EnumMap<>(UserStatus.class);
+    /**
+     * 每个用户写入索引时的键。存储的User可能已被调用方就地修改，更新和删除时据此移除旧索引
+     */
+    private final Map<Long, IndexKeys> indexedKeys = new ConcurrentHashMap<>();
+
+    HeapMockUserStore() {
+        for (UserStatus status : UserStatus.values()) {
+            statusBuckets.put(status, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    @Override
+    public User get(long id) {
+        return users.get(id);
+    }
+
+    /**
+     * 写入并重建该用户的索引，该用户成为其用户名/邮箱的最近写入者
+     */
+    @Override
+    public void put(User user) {
+        long id = user.getId();
+        unindex(id);
+        users.put(id, user);
+        IndexKeys keys = new IndexKeys(user.getUsername(), user.getEmail(), user.getStatus());
+        if (keys.username() != null) {
+            addOwner(usernameIndex, keys.username(), id);
+        }
+        if (keys.email() != null) {
+            addOwner(emailIndex, keys.email(), id);
+        }
+        if (keys.status() != null) {
+            statusBuckets.get(keys.status()).add(id);
+        }
+        indexedKeys.put(id, keys);
+    }
+
+    @Override
+    public User remove(long id) {
+        User removed = users.remove(id);
+        unindex(id);
+        return removed;
+    }
+
+    @Override
+    public boolean contains(long id) {
+        return users.containsKey(id);
+    }
+
+    @Override
+    public int size() {
+        return users.size();
+    }
+
+    @Override
+    public Long findIdByUsername(String username) {
+        return latestOwner(usernameIndex, username);
+    }
+
+    @Override
+    public Long findIdByEmail(String email) {
+        return latestOwner(emailIndex, email);
+    }
+
+    @Override
+    public List<User> findByStatus(UserStatus status) {
+        return statusBuckets.get(status).stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int countByStatus(UserStatus status) {
+        return statusBuckets.get(status).size();
+    }
+
+    @Override
+    public List<User> values() {
+        return new ArrayList<>(users.values());
+    }
+
+    @Override
+    public void forEach(Consumer<? super User> action) {
+        users.values().forEach(action);
+    }
+
+    @Override
+    public void clear() {
+        users.clear();
+        usernameIndex.clear();
+        emailIndex.clear();
+        indexedKeys.clear();
+        statusBuckets.values().forEach(Set::clear);
+    }
+
+    private void unindex(long id) {
+        IndexKeys keys = indexedKeys.remove(id);
+        if (keys == null) {
+            return;
+        }
+        // 只移除该用户自己，同名的其他用户仍可查找
+        if (keys.username() != null) {
+            removeOwner(usernameIndex, keys.username(), id);
+        }
+        if (keys.email() != null) {
+            removeOwner(emailIndex, keys.email(), id);
+        }
+        if (keys.status() != null) {
+            statusBuckets.get(keys.status()).remove(id);
+        }
+    }
+
+    private static void addOwner(Map<String, long[]> index, String key, long id) {
+        index.merge(key, new long[]{id}, (owners, added) -> {
+            long[] grown = Arrays.copyOf(owners, owners.length + 1);
+            grown[owners.length] = id;
+            return grown;
+        });
+    }
+
+    private static void removeOwner(Map<String, long[]> index, String key, long id) {
+        index.computeIfPresent(key, (k, owners) -> {
+            long[] kept = Arrays.stream(owners).filter(owner -> owner != id).toArray();
+            return kept.length == 0 ? null : kept;
+        });
+    }
+
+    private static Long latestOwner(Map<String, long[]> index, String key) {
+        long[] owners = key == null ? null : index.get(key);
+        return owners == null ? null : owners[owners.length - 1];
+    }
+
+    private record IndexKeys(String username, String email, UserStatus status) {
+    }
+}
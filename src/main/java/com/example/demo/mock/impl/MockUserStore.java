@@ -0,0 +1,52 @@
+package com.example.demo.mock.impl;
+
+import com.example.demo.entity.User;
+import com.example.demo.entity.User.UserStatus;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Mock用户主存储，按用户ID存取，并维护用户名、邮箱和状态索引
+ * 索引以写入时的值为准，由存储自己维护，以便按存储形式选择索引结构；
+ * 实现需保证并发读安全；写操作由 UserMockServiceImpl 串行调用
+ */
+interface MockUserStore {
+
+    User get(long id);
+
+    void put(User user);
+
+    User remove(long id);
+
+    boolean contains(long id);
+
+    int size();
+
+    /**
+     * 按用户名查找用户ID，不存在时返回null
+     * 多个用户同名时返回最近写入的一个，该用户删除或改名后回退到其余同名用户
+     */
+    Long findIdByUsername(String username);
+
+    /**
+     * 按邮箱查找用户ID，不存在时返回null；重复邮箱的处理同 findIdByUsername
+     */
+    Long findIdByEmail(String email);
+
+    List<User> findByStatus(UserStatus status);
+
+    int countByStatus(UserStatus status);
+
+    /**
+     * 所有用户的快照
+     */
+    List<User> values();
+
+    /**
+     * 逐个遍历用户，不复制整个集合；遍历期间的并发修改可能可见也可能不可见
+     */
+    void forEach(Consumer<? super User> action);
+
+    void clear();
+}
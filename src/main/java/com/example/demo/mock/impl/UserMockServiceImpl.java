@@ -4,25 +4,40 @@ import com.example.demo.entity.User;
 import com.example.demo.entity.User.UserStatus;
 import com.example.demo.mock.UserMockService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
 import java.util.stream.IntStream;
 
 /**
  * 用户Mock服务实现类
+ * 主存储同时维护用户名、邮箱索引和状态统计，按用户名/邮箱查找和统计均为O(1)；
+ * 写操作串行化以保证索引与主存储一致。
+ * 索引以写入时的值为准，修改已存储的用户后需调用 updateMockUser 才会重建索引。
+ * 主存储由 app.mock.storage 选择：heap（默认，保存User对象）或 compact（基本类型数组，读取时组装User，
+ * 索引也只使用基本类型数组）
  */
 @Service
 @Slf4j
 public class UserMockServiceImpl implements UserMockService {
     
-    private final Map<Long, User> mockUserStorage = new ConcurrentHashMap<>();
+    private final MockUserStore mockUserStorage;
+    private final Object writeLock = new Object();
     private final AtomicLong idGenerator = new AtomicLong(1);
-    private final Random random = new Random();
+    private static final UserStatus[] STATUSES = UserStatus.values();
+    /**
+     * 并行生成时每个分块独立的随机数发生器覆盖的用户数
+     */
+    private static final int GENERATE_CHUNK_SIZE = 4096;
     
     // Mock数据模板
     private final String[] firstNames = {"张", "李", "王", "刘", "陈", "杨", "赵", "黄", "周", "吴"};
@@ -30,63 +45,125 @@ public class UserMockServiceImpl implements UserMockService {
     private final String[] domains = {"gmail.com", "163.com", "qq.com", "sina.com", "hotmail.com"};
     
     public UserMockServiceImpl() {
+        this(new HeapMockUserStore());
+    }
+    
+    @Autowired
+    public UserMockServiceImpl(@Value("${app.mock.storage:heap}") String storage,
+                               @Value("${app.mock.compact.initial-capacity:1024}") int initialCapacity) {
+        this(createStore(storage, initialCapacity));
+        log.info("Mock user storage mode: {}", storage);
+    }
+    
+    private UserMockServiceImpl(MockUserStore mockUserStorage) {
+        this.mockUserStorage = mockUserStorage;
         initializeDefaultMockData();
     }
     
     @Override
     public User generateMockUser() {
-        Long id = idGenerator.getAndIncrement();
-        String firstName = firstNames[random.nextInt(firstNames.length)];
-        String lastName = lastNames[random.nextInt(lastNames.length)];
-        String fullName = firstName + lastName;
+        LocalDateTime now = LocalDateTime.now();
+        return buildMockUser(idGenerator.getAndIncrement(), ThreadLocalRandom.current(), now);
+    }
+    
+    @Override
+    public List<User> generateMockUsers(int count) {
+        return generateMockUsers(count, null);
+    }
+    
+    /**
+     * 按分块并行生成，每块使用独立的 SplittableRandom，分块种子由 seed 和块序号推导，
+     * 因此同一 seed 生成的数据与线程调度无关（ID按本次调用预留的号段递增）
+     */
+    @Override
+    public List<User> generateMockUsers(int count, Long seed) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        long baseId = idGenerator.getAndAdd(count);
+        long baseSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+        LocalDateTime now = LocalDateTime.now();
+        int chunks = (count + GENERATE_CHUNK_SIZE - 1) / GENERATE_CHUNK_SIZE;
+        
+        User[] users = new User[count];
+        IntStream chunkStream = IntStream.range(0, chunks);
+        if (chunks > 1) {
+            chunkStream = chunkStream.parallel();
+        }
+        chunkStream.forEach(chunk -> {
+            SplittableRandom random = new SplittableRandom(mixSeed(baseSeed, chunk));
+            int from = chunk * GENERATE_CHUNK_SIZE;
+            int to = Math.min(from + GENERATE_CHUNK_SIZE, count);
+            for (int i = from; i < to; i++) {
+                users[i] = buildMockUser(baseId + i, random, now);
+            }
+        });
+        return new ArrayList<>(Arrays.asList(users));
+    }
+    
+    private User buildMockUser(long id, RandomGenerator random, LocalDateTime now) {
+        String fullName = firstNames[random.nextInt(firstNames.length)] + lastNames[random.nextInt(lastNames.length)];
         String username = "user" + id;
-        String email = username + "@" + domains[random.nextInt(domains.length)];
-        String phone = "1" + String.format("%010d", random.nextInt(1000000000));
-        UserStatus status = UserStatus.values()[random.nextInt(UserStatus.values().length)];
         
         User user = new User();
         user.setId(id);
         user.setUsername(username);
-        user.setEmail(email);
+        user.setEmail(username + "@" + domains[random.nextInt(domains.length)]);
         user.setPassword("password" + id);
         user.setFullName(fullName);
-        user.setPhone(phone);
-        user.setStatus(status);
-        user.setCreatedAt(LocalDateTime.now().minusDays(random.nextInt(365)));
-        user.setUpdatedAt(LocalDateTime.now());
-        
+        user.setPhone(mockPhone(random.nextInt(1000000000)));
+        user.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+        user.setCreatedAt(now.minusDays(random.nextInt(365)));
+        user.setUpdatedAt(now);
         return user;
     }
     
-    @Override
-    public List<User> generateMockUsers(int count) {
-        return IntStream.range(0, count)
-                .mapToObj(i -> generateMockUser())
-                .collect(Collectors.toList());
+    /**
+     * "1" + 10位补零数字，等价于 "1" + String.format("%010d", number)
+     */
+    private static String mockPhone(int number) {
+        char[] digits = new char[11];
+        digits[0] = '1';
+        for (int i = 10; i > 0; i--) {
+            digits[i] = (char) ('0' + number % 10);
+            number /= 10;
+        }
+        return new String(digits);
+    }
+    
+    private static long mixSeed(long seed, int chunk) {
+        long z = seed + (chunk + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
     
     @Override
     public Optional<User> getMockUserById(Long id) {
-        return Optional.ofNullable(mockUserStorage.get(id));
+        return id == null ? Optional.empty() : Optional.ofNullable(mockUserStorage.get(id));
     }
     
     @Override
     public Optional<User> getMockUserByUsername(String username) {
-        return mockUserStorage.values().stream()
-                .filter(user -> user.getUsername().equals(username))
-                .findFirst();
+        return lookup(mockUserStorage.findIdByUsername(username));
     }
     
     @Override
     public List<User> getAllMockUsers() {
-        return new ArrayList<>(mockUserStorage.values());
+        return mockUserStorage.values();
+    }
+    
+    @Override
+    public void forEachMockUser(Consumer<? super User> action) {
+        mockUserStorage.forEach(action);
     }
     
     @Override
     public List<User> getMockUsersByStatus(UserStatus status) {
-        return mockUserStorage.values().stream()
-                .filter(user -> user.getStatus() == status)
-                .collect(Collectors.toList());
+        if (status == null) {
+            return new ArrayList<>();
+        }
+        return mockUserStorage.findByStatus(status);
     }
     
     @Override
@@ -99,26 +176,53 @@ public class UserMockServiceImpl implements UserMockService {
         }
         user.setUpdatedAt(LocalDateTime.now());
         
-        mockUserStorage.put(user.getId(), user);
+        store(user);
         log.info("Created mock user: {}", user.getUsername());
         return user;
     }
     
+    @Override
+    public int createMockUsers(List<User> users) {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (writeLock) {
+            for (User user : users) {
+                if (user.getId() == null) {
+                    user.setId(idGenerator.getAndIncrement());
+                }
+                if (user.getCreatedAt() == null) {
+                    user.setCreatedAt(now);
+                }
+                user.setUpdatedAt(now);
+                store(user);
+            }
+        }
+        log.info("Created {} mock users", users.size());
+        return users.size();
+    }
+    
     @Override
     public User updateMockUser(User user) {
-        if (user.getId() == null || !mockUserStorage.containsKey(user.getId())) {
-            throw new IllegalArgumentException("Mock user not found with id: " + user.getId());
+        synchronized (writeLock) {
+            if (user.getId() == null || !mockUserStorage.contains(user.getId())) {
+                throw new IllegalArgumentException("Mock user not found with id: " + user.getId());
+            }
+            
+            user.setUpdatedAt(LocalDateTime.now());
+            store(user);
         }
-        
-        user.setUpdatedAt(LocalDateTime.now());
-        mockUserStorage.put(user.getId(), user);
         log.info("Updated mock user: {}", user.getUsername());
         return user;
     }
     
     @Override
     public boolean deleteMockUser(Long id) {
-        User removed = mockUserStorage.remove(id);
+        User removed;
+        synchronized (writeLock) {
+            if (id == null) {
+                return false;
+            }
+            removed = mockUserStorage.remove(id);
+        }
         if (removed != null) {
             log.info("Deleted mock user: {}", removed.getUsername());
             return true;
@@ -128,8 +232,10 @@ public class UserMockServiceImpl implements UserMockService {
     
     @Override
     public void clearAllMockData() {
-        mockUserStorage.clear();
-        idGenerator.set(1);
+        synchronized (writeLock) {
+            mockUserStorage.clear();
+            idGenerator.set(1);
+        }
         log.info("Cleared all mock data");
     }
     
@@ -154,34 +260,60 @@ public class UserMockServiceImpl implements UserMockService {
     
     @Override
     public boolean mockUsernameExists(String username) {
-        return mockUserStorage.values().stream()
-                .anyMatch(user -> user.getUsername().equals(username));
+        return mockUserStorage.findIdByUsername(username) != null;
     }
     
     @Override
     public boolean mockEmailExists(String email) {
-        return mockUserStorage.values().stream()
-                .anyMatch(user -> user.getEmail().equals(email));
+        return mockUserStorage.findIdByEmail(email) != null;
     }
     
     @Override
     public boolean mockValidateLogin(String username, String password) {
         return getMockUserByUsername(username)
-                .map(user -> user.getPassword().equals(password) && user.getStatus() == UserStatus.ACTIVE)
+                .map(user -> password != null && user.getPassword() != null
+                        // 按索引查找用户后做常数时间比较，耗时不随匹配的前缀长度变化
+                        && MessageDigest.isEqual(user.getPassword().getBytes(StandardCharsets.UTF_8),
+                                password.getBytes(StandardCharsets.UTF_8))
+                        && user.getStatus() == UserStatus.ACTIVE)
                 .orElse(false);
     }
     
     @Override
     public MockDataStats getMockDataStats() {
-        List<User> allUsers = getAllMockUsers();
-        int total = allUsers.size();
-        int active = (int) allUsers.stream().filter(u -> u.getStatus() == UserStatus.ACTIVE).count();
-        int inactive = (int) allUsers.stream().filter(u -> u.getStatus() == UserStatus.INACTIVE).count();
-        int suspended = (int) allUsers.stream().filter(u -> u.getStatus() == UserStatus.SUSPENDED).count();
+        int total = mockUserStorage.size();
+        int active = mockUserStorage.countByStatus(UserStatus.ACTIVE);
+        int inactive = mockUserStorage.countByStatus(UserStatus.INACTIVE);
+        int suspended = mockUserStorage.countByStatus(UserStatus.SUSPENDED);
         
         return new MockDataStats(total, active, inactive, suspended);
     }
     
+    private Optional<User> lookup(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(mockUserStorage.get(id));
+    }
+    
+    /**
+     * 写入主存储，由存储重建该用户的索引。同名用户名/邮箱按最近写入者查找，
+     * 该用户删除或改名后回退到其余同名用户，较早的用户不会因此无法查找
+     */
+    private void store(User user) {
+        synchronized (writeLock) {
+            mockUserStorage.put(user);
+        }
+    }
+    
+    private static MockUserStore createStore(String storage, int initialCapacity) {
+        switch (storage.trim().toLowerCase()) {
+            case "heap":
+                return new HeapMockUserStore();
+            case "compact":
+                return new CompactMockUserStore(initialCapacity);
+            default:
+                throw new IllegalArgumentException("Unknown app.mock.storage: " + storage + " (expected heap or compact)");
+        }
+    }
+    
     private User createDefaultUser(String username, String email, String fullName, UserStatus status) {
         User user = new User();
         user.setUsername(username);
@@ -0,0 +1,44 @@
+package com.example.demo.other;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import org.springframework.boot.jdbc.metadata.AbstractDataSourcePoolMetadata;
+
+/**
+ * Druid连接池元数据，使Spring Boot为其发布标准的 jdbc.connections.active/idle/max/min 指标
+ */
+public class DruidDataSourcePoolMetadata extends AbstractDataSourcePoolMetadata<DruidDataSource> {
+
+    public DruidDataSourcePoolMetadata(DruidDataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public Integer getActive() {
+        return getDataSource().getActiveCount();
+    }
+
+    @Override
+    public Integer getIdle() {
+        return getDataSource().getPoolingCount();
+    }
+
+    @Override
+    public Integer getMax() {
+        return getDataSource().getMaxActive();
+    }
+
+    @Override
+    public Integer getMin() {
+        return getDataSource().getMinIdle();
+    }
+
+    @Override
+    public String getValidationQuery() {
+        return getDataSource().getValidationQuery();
+    }
+
+    @Override
+    public Boolean getDefaultAutoCommit() {
+        return getDataSource().isDefaultAutoCommit();
+    }
+}
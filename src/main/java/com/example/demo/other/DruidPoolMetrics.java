@@ -0,0 +1,92 @@
+package com.example.demo.other;
+
+import com.alibaba.druid.filter.FilterAdapter;
+import com.alibaba.druid.filter.FilterChain;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.pool.DruidPooledConnection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Druid连接池指标
+ * 作为连接池过滤器记录每次获取连接的耗时（druid.pool.acquire，带直方图），
+ * 并发布活动、空闲、等待线程数等瞬时值（druid.pool.*）。
+ * 标准的 jdbc.connections.* 指标由 DruidDataSourcePoolMetadata 提供
+ */
+public class DruidPoolMetrics extends FilterAdapter implements MeterBinder {
+
+    private final String poolName;
+
+    private volatile DruidDataSource dataSource;
+
+    private volatile Timer acquireTimer;
+
+    private volatile Counter acquireFailures;
+
+    public DruidPoolMetrics(String poolName) {
+        this.poolName = poolName;
+    }
+
+    /**
+     * 由数据源配置调用，把自身注册为连接池过滤器
+     */
+    void attach(DruidDataSource druidDataSource) {
+        this.dataSource = druidDataSource;
+        druidDataSource.getProxyFilters().add(this);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("druid.pool.active", this, metrics -> metrics.dataSource.getActiveCount())
+                .tag("pool", poolName)
+                .description("Connections currently borrowed")
+                .register(registry);
+        Gauge.builder("druid.pool.idle", this, metrics -> metrics.dataSource.getPoolingCount())
+                .tag("pool", poolName)
+                .description("Idle connections in the pool")
+                .register(registry);
+        Gauge.builder("druid.pool.waiting", this, metrics -> metrics.dataSource.getWaitThreadCount())
+                .tag("pool", poolName)
+                .description("Threads waiting for a connection")
+                .register(registry);
+        Gauge.builder("druid.pool.max", this, metrics -> metrics.dataSource.getMaxActive())
+                .tag("pool", poolName)
+                .register(registry);
+        Gauge.builder("druid.pool.prepared_statements.hits", this,
+                        metrics -> metrics.dataSource.getCachedPreparedStatementHitCount())
+                .tag("pool", poolName)
+                .register(registry);
+        acquireTimer = Timer.builder("druid.pool.acquire")
+                .tag("pool", poolName)
+                .description("Time to borrow a connection from the pool")
+                .publishPercentileHistogram()
+                .register(registry);
+        acquireFailures = Counter.builder("druid.pool.acquire.failed")
+                .tag("pool", poolName)
+                .register(registry);
+    }
+
+    @Override
+    public DruidPooledConnection dataSource_getConnection(FilterChain chain, DruidDataSource dataSource,
+                                                          long maxWaitMillis) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return chain.dataSource_connect(dataSource, maxWaitMillis);
+        } catch (SQLException | RuntimeException e) {
+            if (acquireFailures != null) {
+                acquireFailures.increment();
+            }
+            throw e;
+        } finally {
+            if (acquireTimer != null) {
+                acquireTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.other;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Druid连接池配置 - 对应 db.first.pool.*
+ */
+@Data
+@ConfigurationProperties(prefix = "db.first.pool")
+public class DruidPoolProperties {
+
+    /**
+     * 初始化时创建的连接数
+     */
+    private int initialSize = 5;
+
+    /**
+     * 最小空闲连接数
+     */
+    private int minIdle = 5;
+
+    /**
+     * 最大连接数，同时也是请求准入控制的默认上限
+     */
+    private int maxActive = 20;
+
+    /**
+     * 获取连接的最长等待时间，超时抛出异常而不是无限等待
+     */
+    private Duration maxWait = Duration.ofSeconds(3);
+
+    /**
+     * 每个连接缓存的PreparedStatement数，0 表示不缓存
+     */
+    private int preparedStatementCacheSize = 50;
+
+    private String validationQuery = "SELECT 1";
+
+    /**
+     * 空闲时间超过 timeBetweenEvictionRuns 的连接在借出时校验
+     */
+    private boolean testWhileIdle = true;
+
+    private boolean testOnBorrow = false;
+
+    /**
+     * 空闲连接检测间隔
+     */
+    private Duration timeBetweenEvictionRuns = Duration.ofMinutes(1);
+
+    /**
+     * 空闲超过该时间且多于 minIdle 的连接会被关闭
+     */
+    private Duration minEvictableIdleTime = Duration.ofMinutes(5);
+
+    /**
+     * 启动时建立 initialSize 个连接，避免首批请求承担建连开销
+     */
+    private boolean warmUp = true;
+
+    /**
+     * 执行时间达到该值的SQL记录慢SQL日志，0 表示关闭
+     */
+    private Duration slowSqlThreshold = Duration.ofMillis(500);
+}
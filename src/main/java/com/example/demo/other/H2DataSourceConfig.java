@@ -1,6 +1,7 @@
 package com.example.demo.other;
 
 import com.alibaba.druid.pool.DruidDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.session.SqlSessionFactory;
@@ -8,6 +9,9 @@ import org.mybatis.spring.SqlSessionFactoryBean;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.jdbc.metadata.DataSourcePoolMetadataProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -16,6 +20,9 @@ import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 
 import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author liweier
@@ -23,28 +30,115 @@ import javax.sql.DataSource;
 @Slf4j
 @Configuration
 @MapperScan(value = "com.example.demo.other", annotationClass = Mapper.class, sqlSessionFactoryRef = "sqlSessionFactory")
+@EnableConfigurationProperties({DruidPoolProperties.class, ReplicaProperties.class})
 public class H2DataSourceConfig {
 
     @Value("${db.first.driverClassName:org.h2.Driver}")
     private volatile String driverClassName;
 
-    public static String H2_DB_NAME = "demo";
+    public static final String H2_DB_NAME = "demo";
+
+    /**
+     * 主库地址，默认是用户目录下的 H2_DB_NAME 文件库
+     */
+    @Value("${db.first.url:jdbc:h2:file:~/" + H2_DB_NAME + ";MODE=MYSQL;DATABASE_TO_UPPER=FALSE;AUTO_RECONNECT=TRUE;AUTO_SERVER=TRUE;}")
+    private String url;
 
     @Bean
+    public DruidPoolMetrics druidPoolMetrics() {
+        return new DruidPoolMetrics(H2_DB_NAME);
+    }
+
+    @Bean
+    public SlowSqlFilter slowSqlFilter(DruidPoolProperties pool) {
+        return new SlowSqlFilter(pool.getSlowSqlThreshold());
+    }
+
+    /**
+     * 主库连接池；db.replicas.enabled=true 时包装为读写分离数据源，只读事务使用副本
+     */
+    @Bean(destroyMethod = "close")
     @Primary
-    public DataSource dataSource() {
+    public DataSource dataSource(DruidPoolProperties pool, DruidPoolMetrics poolMetrics, SlowSqlFilter slowSqlFilter,
+                                 ReplicaProperties replicaProperties) throws SQLException {
         log.info("使用手动方式配置 DruidDataSource，不依赖 DataSourceProperties");
+        DruidDataSource primary = createPool(H2_DB_NAME, url, pool);
+        poolMetrics.attach(primary);
+        slowSqlFilter.attach(primary);
+        warmUp(primary, pool);
+        if (!replicaProperties.isEnabled() || replicaProperties.getUrls().isEmpty()) {
+            return primary;
+        }
+
+        List<DruidDataSource> replicaPools = new ArrayList<>();
+        for (int i = 0; i < replicaProperties.getUrls().size(); i++) {
+            DruidDataSource replica = createPool(H2_DB_NAME + "-replica-" + i, replicaProperties.getUrls().get(i),
+                    replicaProperties.getPool());
+            replica.setDefaultReadOnly(true);
+            slowSqlFilter.attach(replica);
+            warmUp(replica, replicaProperties.getPool());
+            replicaPools.add(replica);
+        }
+        log.info("只读事务路由到 {} 个副本，选择策略 {}", replicaPools.size(), replicaProperties.getSelection());
+        return new ReadWriteDataSource(primary, new ReplicaRoutingDataSource(primary, replicaPools, replicaProperties));
+    }
+
+    /**
+     * 副本连接池指标，未启用副本时不发布
+     */
+    @Bean
+    public MeterBinder replicaPoolMetrics(@Qualifier("dataSource") DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ReadWriteDataSource readWriteDataSource) {
+                readWriteDataSource.getReplicas().bindTo(registry);
+            }
+        };
+    }
+
+    private DruidDataSource createPool(String name, String jdbcUrl, DruidPoolProperties pool) {
         DruidDataSource druidDataSource = new DruidDataSource();
+        druidDataSource.setName(name);
         druidDataSource.setKeepAlive(true);
-        druidDataSource.setUrl("jdbc:h2:file:" + "~/" + H2_DB_NAME + ";MODE=MYSQL;DATABASE_TO_UPPER=FALSE;AUTO_RECONNECT=TRUE;AUTO_SERVER=TRUE;");
+        druidDataSource.setUrl(jdbcUrl);
         druidDataSource.setDriverClassName(driverClassName);
         druidDataSource.setUsername("sa");     // ✅ H2 默认用户名
         druidDataSource.setPassword("");       // ✅ H2 默认无密码
-        druidDataSource.setInitialSize(1);
-        druidDataSource.setMaxActive(10);
+        druidDataSource.setInitialSize(pool.getInitialSize());
+        druidDataSource.setMinIdle(pool.getMinIdle());
+        druidDataSource.setMaxActive(pool.getMaxActive());
+        druidDataSource.setMaxWait(pool.getMaxWait().toMillis());
+        // 设置了maxWait后Druid默认使用公平锁，高并发下吞吐明显下降
+        druidDataSource.setUseUnfairLock(true);
+        druidDataSource.setPoolPreparedStatements(pool.getPreparedStatementCacheSize() > 0);
+        druidDataSource.setMaxPoolPreparedStatementPerConnectionSize(pool.getPreparedStatementCacheSize());
+        druidDataSource.setValidationQuery(pool.getValidationQuery());
+        druidDataSource.setTestWhileIdle(pool.isTestWhileIdle());
+        druidDataSource.setTestOnBorrow(pool.isTestOnBorrow());
+        druidDataSource.setTimeBetweenEvictionRunsMillis(pool.getTimeBetweenEvictionRuns().toMillis());
+        druidDataSource.setMinEvictableIdleTimeMillis(pool.getMinEvictableIdleTime().toMillis());
         return druidDataSource;
     }
 
+    private static void warmUp(DruidDataSource druidDataSource, DruidPoolProperties pool) throws SQLException {
+        if (pool.isWarmUp()) {
+            // 立即建立 initialSize 个连接，否则首次获取连接时才初始化
+            druidDataSource.init();
+            log.info("DruidDataSource {} 预热完成，已建立 {} 个连接", druidDataSource.getName(),
+                    druidDataSource.getPoolingCount());
+        }
+    }
+
+    /**
+     * 让actuator为Druid连接池发布 jdbc.connections.* 指标
+     */
+    @Bean
+    public DataSourcePoolMetadataProvider druidPoolMetadataProvider() {
+        return dataSource -> {
+            DruidDataSource druidDataSource = DataSourceUnwrapper.unwrap(dataSource, DruidDataSource.class);
+            return druidDataSource == null ? null : new DruidDataSourcePoolMetadata(druidDataSource);
+        };
+    }
+
     @Bean
     @Primary
     public DataSourceTransactionManager dataSourceTransactionManager(@Qualifier("dataSource") DataSource dataSource) {
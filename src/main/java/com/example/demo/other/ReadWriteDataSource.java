@@ -0,0 +1,58 @@
+package com.example.demo.other;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 读写分离数据源
+ * 连接延迟到第一次执行SQL时才真正获取，此时事务已把连接标记为只读：
+ * 只读事务（@Transactional(readOnly = true)）从副本获取连接，其余使用主库。
+ * 事务管理器只标记它自己绑定的连接；Hibernate 在事务中另行获取的连接按当前事务的只读标记预先标记，
+ * 使 @Primary 的 DataSourceTransactionManager 管理的只读事务里的 JPA 查询同样走副本
+ */
+public class ReadWriteDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private final ReplicaRoutingDataSource replicas;
+
+    public ReadWriteDataSource(DataSource primary, ReplicaRoutingDataSource replicas) {
+        super(primary);
+        this.replicas = replicas;
+        setReadOnlyDataSource(replicas);
+    }
+
+    public ReplicaRoutingDataSource getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return markReadOnly(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return markReadOnly(super.getConnection(username, password));
+    }
+
+    /**
+     * 尚未获取目标连接，setReadOnly 只记录在代理上，决定之后从哪个数据源获取
+     */
+    private static Connection markReadOnly(Connection connection) throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            connection.setReadOnly(true);
+        }
+        return connection;
+    }
+
+    @Override
+    public void close() throws Exception {
+        replicas.close();
+        if (getTargetDataSource() instanceof AutoCloseable primary) {
+            primary.close();
+        }
+    }
+}
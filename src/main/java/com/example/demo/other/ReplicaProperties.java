@@ -0,0 +1,60 @@
+package com.example.demo.other;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 只读副本配置 - 对应 db.replicas.*
+ * 启用后只读事务的连接从副本获取，写操作和非只读事务仍使用主库
+ */
+@Data
+@ConfigurationProperties(prefix = "db.replicas")
+public class ReplicaProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * 副本JDBC地址，每个地址一个独立连接池，用户名密码与主库相同
+     */
+    private List<String> urls = new ArrayList<>();
+
+    private Selection selection = Selection.ROUND_ROBIN;
+
+    /**
+     * 健康检查间隔，不健康的副本在检查恢复前不参与路由
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * 复制延迟查询，返回单个数值（秒），为空时只检查连通性。
+     * 例如MySQL可使用 information_schema/performance_schema 中的复制延迟
+     */
+    private String lagQuery;
+
+    /**
+     * 复制延迟超过该值的副本视为不可用
+     */
+    private Duration maxLag = Duration.ofSeconds(10);
+
+    /**
+     * 每个副本的连接池参数
+     */
+    @NestedConfigurationProperty
+    private DruidPoolProperties pool = new DruidPoolProperties();
+
+    public enum Selection {
+        /**
+         * 依次轮流
+         */
+        ROUND_ROBIN,
+        /**
+         * 选择借出连接最少的副本
+         */
+        LEAST_LOADED
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.demo.other;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.pool.GetConnectionTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 副本连接路由
+ * 在健康的副本间按轮询或最少借出连接选择；连接失败的副本立即标记为不健康并尝试下一个，
+ * 连接池已满（等待超时）的副本只是跳过本次、仍留在路由中，全部不可用时回退到主库。后台线程定期检查连通性和复制延迟，恢复后重新参与路由
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, AutoCloseable {
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final ReplicaProperties properties;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final ScheduledExecutorService healthChecker;
+
+    private final List<DruidPoolMetrics> poolMetrics = new ArrayList<>();
+
+    private volatile Counter fallbacks;
+
+    static final class Replica {
+
+        private final String name;
+
+        private final DruidDataSource dataSource;
+
+        private volatile boolean healthy = true;
+
+        Replica(String name, DruidDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        String name() {
+            return name;
+        }
+
+        boolean healthy() {
+            return healthy;
+        }
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DruidDataSource> replicaPools, ReplicaProperties properties) {
+        this.primary = primary;
+        this.properties = properties;
+        this.replicas = new ArrayList<>();
+        for (DruidDataSource pool : replicaPools) {
+            replicas.add(new Replica(pool.getName(), pool));
+            DruidPoolMetrics metrics = new DruidPoolMetrics(pool.getName());
+            metrics.attach(pool);
+            poolMetrics.add(metrics);
+        }
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getHealthCheckInterval().toMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        for (Replica replica : candidates()) {
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                if (saturated(replica, e)) {
+                    // 连接池已满只说明副本繁忙，换下一个副本，不移出路由
+                    log.debug("Replica {} pool exhausted, trying next: {}", replica.name, e.getMessage());
+                } else {
+                    markUnhealthy(replica, e.getMessage());
+                }
+            }
+        }
+        if (fallbacks != null) {
+            fallbacks.increment();
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    /**
+     * 按选择策略排好序的健康副本
+     */
+    List<Replica> candidates() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.size() > 1) {
+            if (properties.getSelection() == ReplicaProperties.Selection.LEAST_LOADED) {
+                healthy.sort(Comparator.comparingInt(replica -> replica.dataSource.getActiveCount()));
+            } else {
+                int start = Math.floorMod(next.getAndIncrement(), healthy.size());
+                List<Replica> rotated = new ArrayList<>(healthy.subList(start, healthy.size()));
+                rotated.addAll(healthy.subList(0, start));
+                healthy = rotated;
+            }
+        }
+        return healthy;
+    }
+
+    /**
+     * 所有副本的最大连接数之和
+     */
+    public int capacity() {
+        return replicas.stream().mapToInt(replica -> replica.dataSource.getMaxActive()).sum();
+    }
+
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            String problem = probe(replica);
+            if (problem == null) {
+                if (!replica.healthy) {
+                    replica.healthy = true;
+                    log.info("Replica {} is healthy again", replica.name);
+                }
+            } else {
+                markUnhealthy(replica, problem);
+            }
+        }
+    }
+
+    /**
+     * @return 不可用的原因，可用时为空
+     */
+    private String probe(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection(properties.getPool().getMaxWait().toMillis());
+             Statement statement = connection.createStatement()) {
+            String query = properties.getLagQuery() != null ? properties.getLagQuery() : replica.dataSource.getValidationQuery();
+            try (ResultSet resultSet = statement.executeQuery(query)) {
+                if (properties.getLagQuery() != null && resultSet.next()) {
+                    long lagSeconds = resultSet.getLong(1);
+                    if (lagSeconds > properties.getMaxLag().toSeconds()) {
+                        return "replication lag " + lagSeconds + "s";
+                    }
+                }
+            }
+            return null;
+        } catch (SQLException e) {
+            // 探测和请求共用连接池，池满时借不到连接不代表副本不可用，保持当前状态
+            return saturated(replica, e) ? (replica.healthy ? null : "pool exhausted") : e.getMessage();
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * 等待超时且连接全部借出：连接池饱和。数据库不可达时Druid同样报等待超时，但此时借出的连接数不会达到上限
+     */
+    static boolean saturated(Replica replica, SQLException e) {
+        return e instanceof GetConnectionTimeoutException
+                && replica.dataSource.getActiveCount() >= replica.dataSource.getMaxActive();
+    }
+
+    private void markUnhealthy(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Replica {} removed from read routing: {}", replica.name, reason);
+        }
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        poolMetrics.forEach(metrics -> metrics.bindTo(registry));
+        Gauge.builder("db.replicas.healthy", replicas, list -> list.stream().filter(Replica::healthy).count())
+                .register(registry);
+        fallbacks = Counter.builder("db.replicas.fallback")
+                .description("Read-only connections served by the primary because no replica was available")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.other;
+
+import com.alibaba.druid.filter.FilterEventAdapter;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.proxy.jdbc.ResultSetProxy;
+import com.alibaba.druid.proxy.jdbc.StatementProxy;
+import com.example.demo.config.CallSites;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 慢SQL日志
+ * 作为连接池过滤器为每条语句计时，达到阈值时记录SQL、绑定参数个数、耗时和调用方（jdbc.statements.slow）。
+ * 覆盖 JPA、MyBatis 和 jOOQ 的全部语句；批量执行不计时
+ */
+@Slf4j
+public class SlowSqlFilter extends FilterEventAdapter implements MeterBinder {
+
+    private final long thresholdNanos;
+
+    private volatile Counter slowStatements;
+
+    public SlowSqlFilter(Duration threshold) {
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    /**
+     * 由数据源配置调用，把自身注册为连接池过滤器
+     */
+    void attach(DruidDataSource druidDataSource) {
+        if (thresholdNanos > 0) {
+            druidDataSource.getProxyFilters().add(this);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        slowStatements = Counter.builder("jdbc.statements.slow").register(registry);
+    }
+
+    @Override
+    protected void statementExecuteBefore(StatementProxy statement, String sql) {
+        statement.setLastExecuteStartNano();
+    }
+
+    @Override
+    protected void statementExecuteAfter(StatementProxy statement, String sql, boolean result) {
+        executed(statement, sql);
+    }
+
+    @Override
+    protected void statementExecuteQueryBefore(StatementProxy statement, String sql) {
+        statement.setLastExecuteStartNano();
+    }
+
+    @Override
+    protected void statementExecuteQueryAfter(StatementProxy statement, String sql, ResultSetProxy resultSet) {
+        executed(statement, sql);
+    }
+
+    @Override
+    protected void statementExecuteUpdateBefore(StatementProxy statement, String sql) {
+        statement.setLastExecuteStartNano();
+    }
+
+    @Override
+    protected void statementExecuteUpdateAfter(StatementProxy statement, String sql, int updateCount) {
+        executed(statement, sql);
+    }
+
+    private void executed(StatementProxy statement, String sql) {
+        long nanos = System.nanoTime() - statement.getLastExecuteStartNano();
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        if (slowStatements != null) {
+            slowStatements.increment();
+        }
+        log.warn("Slow SQL took {} ms ({} parameters) from {}: {}", TimeUnit.NANOSECONDS.toMillis(nanos),
+                statement.getParametersSize(), CallSites.caller(), sql);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.other;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * sys_user 批量写入
+ * 每 chunkSize 行拼成一条多行 INSERT，N 行只需 N/chunkSize 次往返，自增主键回填到传入的对象
+ */
+@Slf4j
+@Service
+public class SysUserBatchService {
+
+    /**
+     * 单条语句的最大行数，过大的语句解析和参数绑定开销会抵消减少往返的收益
+     */
+    private static final int MAX_CHUNK_SIZE = 5_000;
+
+    @Autowired
+    private SysUserMapper userMapper;
+
+    @Value("${app.mybatis.batch-size:500}")
+    private int defaultChunkSize;
+
+    /**
+     * 批量插入，全部成功或全部回滚
+     *
+     * @param chunkSize 每条语句的行数，小于1时使用 app.mybatis.batch-size
+     * @return 插入的用户，id 已回填
+     */
+    @Transactional
+    public List<SysUser> insertAll(List<SysUser> users, int chunkSize) {
+        int size = chunkSize < 1 ? defaultChunkSize : Math.min(chunkSize, MAX_CHUNK_SIZE);
+        int statements = 0;
+        for (int from = 0; from < users.size(); from += size) {
+            userMapper.insertBatch(users.subList(from, Math.min(from + size, users.size())));
+            statements++;
+        }
+        log.debug("Inserted {} sys_user rows with {} statements", users.size(), statements);
+        return users;
+    }
+}
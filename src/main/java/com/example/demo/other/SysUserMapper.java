@@ -3,7 +3,15 @@ package com.example.demo.other;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
 
+import java.util.List;
+
 @Mapper
 public interface SysUserMapper extends BaseMapper<SysUser> {
 
+    /**
+     * 多行插入，插入后回填每个对象的id
+     *
+     * @return 插入行数
+     */
+    int insertBatch(List<SysUser> users);
 }
\ No newline at end of file
@@ -4,11 +4,15 @@ import com.example.demo.entity.User;
 import com.example.demo.entity.User.UserStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
@@ -53,6 +57,7 @@ public interface AdvancedUserRepository extends JpaRepository<User, Long>, JpaSp
     List<User> findUsersWithMinimumOrders(@Param("minOrders") int minOrders);
     
     // 5. 统计查询
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT COUNT(u) FROM User u WHERE u.status = :status")
     long countByStatus(@Param("status") UserStatus status);
     
@@ -78,6 +83,7 @@ public interface AdvancedUserRepository extends JpaRepository<User, Long>, JpaSp
     
     // 8. EntityGraph查询 - 解决N+1问题
     @EntityGraph(attributePaths = {"roles", "roles.permissions"})
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT u FROM User u WHERE u.id = :id")
     Optional<User> findByIdWithRolesAndPermissions(@Param("id") Long id);
     
@@ -85,9 +91,13 @@ public interface AdvancedUserRepository extends JpaRepository<User, Long>, JpaSp
     @Query("SELECT u FROM User u WHERE u.status = :status")
     List<User> findByStatusWithProfilesAndOrders(@Param("status") UserStatus status);
     
-    // 9. 投影查询
-    @Query("SELECT u.id, u.username, u.email FROM User u WHERE u.status = :status")
-    List<Object[]> findUserBasicInfo(@Param("status") UserStatus status);
+    // 9. 投影查询 - 只查询需要的列，不创建托管实体
+    @Query("SELECT u.id AS id, u.username AS username, u.email AS email FROM User u WHERE u.status = :status")
+    List<UserBasicInfo> findUserBasicInfo(@Param("status") UserStatus status);
+    
+    @Query("SELECT new com.example.demo.repository.UserSummary(u.id, u.username, u.email, u.fullName, u.status, u.createdAt) " +
+           "FROM User u WHERE u.status = :status")
+    Slice<UserSummary> findSummariesByStatus(@Param("status") UserStatus status, Pageable pageable);
     
     // 10. 命名查询（在实体类中定义）
     // 注意：这里使用命名查询，方法名对应实体类中的@NamedQuery
@@ -0,0 +1,13 @@
+package com.example.demo.repository;
+
+/**
+ * 用户基本信息接口投影，按查询中的列别名取值
+ */
+public interface UserBasicInfo {
+
+    Long getId();
+
+    String getUsername();
+
+    String getEmail();
+}
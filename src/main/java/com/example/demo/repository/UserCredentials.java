@@ -0,0 +1,9 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.User.UserStatus;
+
+/**
+ * 登录校验所需的最少字段，单条查询取出，不加载用户实体
+ */
+public record UserCredentials(Long id, String password, UserStatus status) {
+}
@@ -1,13 +1,18 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.User;
+import com.example.demo.entity.User.UserStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 用户数据访问层接口
@@ -16,13 +21,15 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     
     /**
-     * 根据用户名查找用户
+     * 根据用户名查找用户（查询缓存）
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
     
     /**
-     * 根据邮箱查找用户
+     * 根据邮箱查找用户（查询缓存）
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
     
     /**
@@ -55,6 +62,32 @@ public interface UserRepository extends JpaRepository<User, Long> {
     /**
      * 统计活跃用户数量
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT COUNT(u) FROM User u WHERE u.status = 'ACTIVE'")
     long countActiveUsers();
-}
\ No newline at end of file
+    
+    /**
+     * 登录校验只查询ID、密码和状态
+     */
+    @Query("SELECT new com.example.demo.repository.UserCredentials(u.id, u.password, u.status) " +
+           "FROM User u WHERE u.username = :username")
+    Optional<UserCredentials> findCredentialsByUsername(@Param("username") String username);
+    
+    /**
+     * 按ID查询用户摘要
+     */
+    @Query("SELECT new com.example.demo.repository.UserSummary(u.id, u.username, u.email, u.fullName, u.status, u.createdAt) " +
+           "FROM User u WHERE u.id = :id")
+    Optional<UserSummary> findSummaryById(@Param("id") Long id);
+    
+    /**
+     * 按状态和姓名（均可为空）流式读取用户摘要，必须在事务内消费并关闭
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.example.demo.repository.UserSummary(u.id, u.username, u.email, u.fullName, u.status, u.createdAt) " +
+           "FROM User u WHERE " +
+           "(:status IS NULL OR u.status = :status) AND " +
+           "(:name IS NULL OR u.fullName LIKE %:name%) " +
+           "ORDER BY u.id")
+    Stream<UserSummary> streamSummaries(@Param("status") UserStatus status, @Param("name") String name);
+}
@@ -0,0 +1,13 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.User.UserStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户列表摘要 - JPQL 构造表达式直接生成，不创建托管实体、不含密码，
+ * 没有延迟关联代理和脏检查快照
+ */
+public record UserSummary(Long id, String username, String email, String fullName,
+                          UserStatus status, LocalDateTime createdAt) {
+}
@@ -2,15 +2,20 @@ package com.example.demo.service;
 
 import com.example.demo.entity.*;
 import com.example.demo.repository.AdvancedUserRepository;
+import jakarta.persistence.EntityGraph;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
+import org.hibernate.Hibernate;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.NativeQuery;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
@@ -23,11 +28,21 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.math.BigDecimal;
 
 /**
@@ -43,6 +58,29 @@ public class AdvancedHibernateService {
     @Autowired
     private AdvancedUserRepository userRepository;
     
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private UserCredentialCache userCredentialCache;
+    
+    @Autowired
+    private PermissionIndex permissionIndex;
+    
+    /**
+     * JPA事务管理器；按类型注入会得到 @Primary 的 DataSourceTransactionManager，其中执行的原生更新没有 Hibernate 事务
+     */
+    @Autowired
+    @Qualifier("transactionManager")
+    private PlatformTransactionManager transactionManager;
+    
+    /**
+     * 已完成订单总额达到该值的用户获得VIP角色
+     */
+    private static final BigDecimal VIP_THRESHOLD = new BigDecimal("1000");
+    
+    private static final String VIP_ROLE_NAME = "VIP";
+    
     // 1. 缓存操作演示
     @Cacheable(value = "users", key = "#id")
     public Optional<User> getUserWithCache(Long id) {
@@ -89,20 +127,25 @@ public class AdvancedHibernateService {
     }
     
     // 3. 批处理操作
+    // 主键使用pooled-lo序列，persist时不会立即INSERT，每满一批统一刷新为JDBC批处理
     @Transactional
     public void batchCreateUsers(List<User> users) {
         int batchSize = 20;
         for (int i = 0; i < users.size(); i++) {
             entityManager.persist(users.get(i));
-            if (i % batchSize == 0) {
+            if ((i + 1) % batchSize == 0) {
                 entityManager.flush();
                 entityManager.clear();
             }
         }
+        entityManager.flush();
+        entityManager.clear();
     }
     
     @Transactional
     public int batchUpdateUserStatus(User.UserStatus oldStatus, User.UserStatus newStatus) {
+        // 批量更新不触发实体事件，提交后清空登录凭据缓存
+        userCredentialCache.invalidateAll();
         return userRepository.updateUserStatus(oldStatus, newStatus);
     }
     
@@ -200,19 +243,164 @@ public class AdvancedHibernateService {
         return userRepository.findAll(spec, pageable);
     }
     
-    // 10. 懒加载演示
+    /**
+     * 游标分页单页的最大行数，超过时按该值截断
+     */
+    public static final int MAX_KEYSET_PAGE_SIZE = 1000;
+    
+    // 9.1 游标（keyset）分页 - 按 (createdAt, id) 倒序定位下一页，走 idx_user_created_at 索引
+    // 深分页无需扫描并丢弃前面的行，只有 includeTotal 为 true 时才执行 COUNT
+    // createdAt 为空的行（如直接写库的历史数据）排在最后，按 id 倒序翻页
+    // size 非正或 cursor 无法解析时抛出 IllegalArgumentException，超过 MAX_KEYSET_PAGE_SIZE 时截断
+    @Transactional(readOnly = true)
+    public KeysetPage<User> findUsersByKeyset(String username, String email, User.UserStatus status,
+                                              String cursor, int size, boolean includeTotal) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        size = Math.min(size, MAX_KEYSET_PAGE_SIZE);
+        // 需要 NULLS LAST 排序，使用 Hibernate 扩展的 CriteriaBuilder
+        HibernateCriteriaBuilder cb = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getCriteriaBuilder();
+        CriteriaQuery<User> query = cb.createQuery(User.class);
+        Root<User> root = query.from(User.class);
+        Path<LocalDateTime> createdAtPath = root.get("createdAt");
+        Path<Long> idPath = root.get("id");
+        
+        List<Predicate> predicates = searchPredicates(cb, root, username, email, status);
+        if (cursor != null && !cursor.isEmpty()) {
+            Object[] position = decodeCursor(cursor);
+            LocalDateTime createdAt = (LocalDateTime) position[0];
+            Long id = (Long) position[1];
+            if (createdAt == null) {
+                // 已进入末尾 createdAt 为空的部分
+                predicates.add(cb.and(cb.isNull(createdAtPath), cb.lessThan(idPath, id)));
+            } else {
+                predicates.add(cb.or(
+                    cb.lessThan(createdAtPath, createdAt),
+                    cb.and(cb.equal(createdAtPath, createdAt), cb.lessThan(idPath, id)),
+                    cb.isNull(createdAtPath)));
+            }
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(cb.desc(createdAtPath, false), cb.desc(idPath));
+        
+        // 多取一行用于判断是否还有下一页
+        List<User> users = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean hasNext = users.size() > size;
+        List<User> content = hasNext ? new ArrayList<>(users.subList(0, size)) : users;
+        String nextCursor = hasNext ? encodeCursor(content.get(content.size() - 1)) : null;
+        
+        Long total = null;
+        if (includeTotal) {
+            CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+            Root<User> countRoot = countQuery.from(User.class);
+            countQuery.select(cb.count(countRoot))
+                      .where(searchPredicates(cb, countRoot, username, email, status).toArray(new Predicate[0]));
+            total = entityManager.createQuery(countQuery).getSingleResult();
+        }
+        return new KeysetPage<>(content, nextCursor, hasNext, total);
+    }
+    
+    private List<Predicate> searchPredicates(CriteriaBuilder cb, Root<User> root,
+                                             String username, String email, User.UserStatus status) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (username != null && !username.isEmpty()) {
+            predicates.add(cb.like(cb.lower(root.get("username")), "%" + username.toLowerCase() + "%"));
+        }
+        if (email != null && !email.isEmpty()) {
+            predicates.add(cb.like(cb.lower(root.get("email")), "%" + email.toLowerCase() + "%"));
+        }
+        if (status != null) {
+            predicates.add(cb.equal(root.get("status"), status));
+        }
+        return predicates;
+    }
+    
+    // createdAt 为空时编码为空串
+    private static String encodeCursor(User last) {
+        String raw = (last.getCreatedAt() == null ? "" : last.getCreatedAt().toString()) + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static Object[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            String createdAt = raw.substring(0, separator);
+            return new Object[] {
+                createdAt.isEmpty() ? null : LocalDateTime.parse(createdAt),
+                Long.valueOf(raw.substring(separator + 1))
+            };
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+    
+    // 10. 懒加载演示 - 按抓取计划在事务内初始化全部关联
     @Transactional(readOnly = true)
     public User getUserWithLazyLoading(Long id) {
-        Optional<User> userOpt = userRepository.findById(id);
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            // 触发懒加载
-            user.getRoles().size();
-            user.getUserProfiles().size();
-            user.getOrders().size();
-            return user;
+        return findUser(id, UserFetchPlan.of(UserFetchPlan.Association.ROLES,
+                UserFetchPlan.Association.PROFILES, UserFetchPlan.Association.ORDERS)).orElse(null);
+    }
+    
+    /**
+     * 按抓取计划查询单个用户
+     */
+    @Transactional(readOnly = true)
+    public Optional<User> findUser(Long id, UserFetchPlan plan) {
+        return findUsers(List.of(id), plan).stream().findFirst();
+    }
+    
+    /**
+     * 按抓取计划批量查询用户，返回时计划中的关联均已初始化，可在事务外安全访问。
+     * 第一个关联通过动态实体图随查询连接抓取；其余集合每种关联只需一条查询：
+     * 档案和订单使用 SUBSELECT 一次加载本次查询的全部用户，角色和权限按 @BatchSize 分批加载
+     */
+    @Transactional(readOnly = true)
+    public List<User> findUsers(Collection<Long> ids, UserFetchPlan plan) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        TypedQuery<User> query = entityManager
+                .createQuery("SELECT u FROM User u WHERE u.id IN :ids ORDER BY u.id", User.class)
+                .setParameter("ids", ids);
+        UserFetchPlan.Association joined = plan.joinFetched();
+        if (joined != null) {
+            query.setHint("jakarta.persistence.fetchgraph", fetchGraph(joined));
+        }
+        List<User> users = query.getResultList();
+        for (UserFetchPlan.Association association : plan.associations()) {
+            if (association != joined) {
+                initialize(users, association);
+            }
+        }
+        return users;
+    }
+    
+    private EntityGraph<User> fetchGraph(UserFetchPlan.Association association) {
+        EntityGraph<User> graph = entityManager.createEntityGraph(User.class);
+        if (association == UserFetchPlan.Association.ROLE_PERMISSIONS) {
+            graph.addSubgraph("roles").addAttributeNodes("permissions");
+        } else {
+            graph.addAttributeNodes(association.path());
+        }
+        return graph;
+    }
+    
+    private void initialize(List<User> users, UserFetchPlan.Association association) {
+        // 初始化第一个集合时，批量/子查询加载会一并填充其余用户的同名集合
+        for (User user : users) {
+            switch (association) {
+                case ROLES -> Hibernate.initialize(user.getRoles());
+                case ROLE_PERMISSIONS -> {
+                    Hibernate.initialize(user.getRoles());
+                    user.getRoles().forEach(role -> Hibernate.initialize(role.getPermissions()));
+                }
+                case PROFILES -> Hibernate.initialize(user.getUserProfiles());
+                case ORDERS -> Hibernate.initialize(user.getOrders());
+            }
         }
-        return null;
     }
     
     // 11. 二级缓存演示
@@ -222,6 +410,14 @@ public class AdvancedHibernateService {
         return userOpt.map(user -> new ArrayList<>(user.getRoles())).orElse(new ArrayList<>());
     }
     
+    /**
+     * 权限检查走预计算的权限位集，不加载角色和权限实体，也不占用数据库连接
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean hasPermission(Long userId, String permissionCode) {
+        return permissionIndex.hasPermission(userId, permissionCode);
+    }
+    
     // 12. 乐观锁演示
     @Transactional
     public User updateUserWithOptimisticLock(Long userId, String newEmail) {
@@ -248,26 +444,93 @@ public class AdvancedHibernateService {
     }
     
     // 14. 复杂业务逻辑演示
+    // 订单总额用聚合查询计算，不再加载整个订单集合；VIP角色ID走 roles 缓存
     @Transactional
     public void processUserOrders(Long userId) {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
         
-        // 计算用户总订单金额
-        BigDecimal totalAmount = user.getOrders().stream()
-            .filter(order -> order.getStatus() == com.example.demo.entity.Order.OrderStatus.COMPLETED)
-            .map(com.example.demo.entity.Order::getTotalAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalAmount = entityManager.createNamedQuery("Order.calculateTotalByUser", BigDecimal.class)
+            .setParameter("user", user)
+            .getSingleResult();
         
         // 根据订单金额更新用户等级
-        if (totalAmount.compareTo(new BigDecimal("1000")) >= 0) {
+        if (totalAmount != null && totalAmount.compareTo(VIP_THRESHOLD) >= 0) {
             // 添加VIP角色
-            Role vipRole = entityManager.createQuery(
-                "SELECT r FROM Role r WHERE r.name = 'VIP'", Role.class)
-                .getSingleResult();
+            Role vipRole = entityManager.getReference(Role.class, getVipRoleId());
             user.addRole(vipRole);
         }
         
         userRepository.save(user);
     }
+    
+    // 15. 批量VIP等级计算 - 按用户ID区间分块，每块一条 INSERT ... SELECT 聚合语句完成判定和授权
+    // 每块单独提交，parallelism > 1 时多个区间并行执行
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long assignVipRolesInBatch(int chunkSize, int parallelism) {
+        if (chunkSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("chunkSize and parallelism must be positive");
+        }
+        Object[] idRange = entityManager.createQuery("SELECT MIN(u.id), MAX(u.id) FROM User u", Object[].class)
+            .getSingleResult();
+        if (idRange[0] == null) {
+            return 0;
+        }
+        long minId = (Long) idRange[0];
+        long maxId = (Long) idRange[1];
+        Long vipRoleId = getVipRoleId();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (long from = minId; from <= maxId; from += chunkSize) {
+                long to = Math.min(from + chunkSize - 1, maxId);
+                long chunkFrom = from;
+                chunks.add(executor.submit(() -> transactionTemplate.execute(status ->
+                    assignVipRoles(vipRoleId, chunkFrom, to))));
+            }
+            long assigned = 0;
+            for (Future<Integer> chunk : chunks) {
+                assigned += chunk.get();
+            }
+            return assigned;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("VIP role assignment interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("VIP role assignment failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            // 授权绕过了实体，清除用户角色缓存并重建权限索引
+            cacheManager.getCache("userRoles").clear();
+            permissionIndex.reload();
+        }
+    }
+    
+    private int assignVipRoles(Long vipRoleId, long fromUserId, long toUserId) {
+        String sql = "INSERT INTO user_roles (user_id, role_id) " +
+                    "SELECT o.user_id, :roleId FROM orders o " +
+                    "WHERE o.user_id BETWEEN :fromId AND :toId " +
+                    "AND o.status = 'COMPLETED' AND o.deleted = false " +
+                    "AND NOT EXISTS (SELECT 1 FROM user_roles ur WHERE ur.user_id = o.user_id AND ur.role_id = :roleId) " +
+                    "GROUP BY o.user_id HAVING SUM(o.total_amount) >= :threshold";
+        
+        return entityManager.createNativeQuery(sql)
+            .unwrap(NativeQuery.class)
+            // 只失效与 user_roles 相关的二级缓存区域
+            .addSynchronizedQuerySpace("user_roles")
+            .setParameter("roleId", vipRoleId)
+            .setParameter("fromId", fromUserId)
+            .setParameter("toId", toUserId)
+            .setParameter("threshold", VIP_THRESHOLD)
+            .executeUpdate();
+    }
+    
+    private Long getVipRoleId() {
+        return cacheManager.getCache("roles").get(VIP_ROLE_NAME, () ->
+            entityManager.createQuery("SELECT r.id FROM Role r WHERE r.name = :name", Long.class)
+                .setParameter("name", VIP_ROLE_NAME)
+                .getSingleResult());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.example.demo.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标（keyset）分页结果
+ * nextCursor 为不透明的续页令牌，为空表示没有下一页；
+ * totalElements 只有在调用方显式要求时才会计算
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+    private List<T> content;
+
+    private String nextCursor;
+
+    private boolean hasNext;
+
+    private Long totalElements;
+}
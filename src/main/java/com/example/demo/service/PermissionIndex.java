@@ -0,0 +1,382 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Role;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 用户权限索引
+ * 每个权限编码分配一个位序号，每个角色对应其已启用权限的位集，用户的有效权限是其所有有效角色位集的按位或。
+ * hasPermission 只做两次哈希查找和一次位运算，不访问Hibernate。
+ * 启动时全量加载；角色权限、用户角色、角色/权限状态变化由 PermissionIndexListener 在事务提交后
+ * 按受影响的ID从数据库重新读取并增量重算，绕过实体的批量授权需调用 reload()
+ */
+@Slf4j
+public class PermissionIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * 当前索引，reload 时整体替换；增量更新在持有 this 锁时修改其中的映射
+     */
+    private volatile State state = new State();
+
+    public PermissionIndex(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void start() {
+        reload();
+    }
+
+    /**
+     * 用户是否拥有指定权限（角色为 ACTIVE 且启用、权限启用）
+     */
+    public boolean hasPermission(Long userId, String code) {
+        if (userId == null || code == null) {
+            return false;
+        }
+        State current = state;
+        Integer bit = current.codeBits.get(code);
+        if (bit == null) {
+            return false;
+        }
+        long[] bits = current.userBits.get(userId);
+        int word = bit >>> 6;
+        return bits != null && word < bits.length && (bits[word] & (1L << bit)) != 0;
+    }
+
+    /**
+     * 从数据库全量重建，用户角色关联用前向游标读取
+     */
+    public synchronized void reload() {
+        long start = System.nanoTime();
+        Snapshot snapshot = inSession(session -> {
+            List<Link> userRoles = new ArrayList<>();
+            try (ScrollableResults<Object[]> rows = session
+                    .createQuery("SELECT u.id, r.id FROM User u JOIN u.roles r", Object[].class)
+                    .setFetchSize(1_000)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (rows.next()) {
+                    Object[] row = rows.get();
+                    userRoles.add(new Link((Long) row[0], (Long) row[1]));
+                }
+            }
+            return new Snapshot(
+                    permissionRows(session.createQuery(
+                            "SELECT p.id, p.code, p.enabled FROM Permission p", Object[].class).getResultList()),
+                    roleRows(session.createQuery(
+                            "SELECT r.id, r.status, r.enabled FROM Role r", Object[].class).getResultList()),
+                    links(session.createQuery(
+                            "SELECT r.id, p.id FROM Role r JOIN r.permissions p", Object[].class).getResultList()),
+                    userRoles);
+        });
+        replace(snapshot);
+        log.info("Permission index loaded: {} permissions, {} roles, {} users in {} ms",
+                snapshot.permissions().size(), snapshot.roles().size(), state.userBits.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 重新读取指定用户、角色、权限的当前状态并重算受影响的位集；数据库中已不存在的ID视为删除
+     */
+    public synchronized void refresh(Set<Long> userIds, Set<Long> roleIds, Set<Long> permissionIds) {
+        if (userIds.isEmpty() && roleIds.isEmpty() && permissionIds.isEmpty()) {
+            return;
+        }
+        Snapshot rows = inSession(session -> {
+            List<PermissionRow> permissions = new ArrayList<>();
+            List<RoleRow> roles = new ArrayList<>();
+            List<Link> rolePermissions = new ArrayList<>();
+            List<Link> userRoles = new ArrayList<>();
+            if (!permissionIds.isEmpty()) {
+                permissions.addAll(permissionRows(session.createQuery(
+                        "SELECT p.id, p.code, p.enabled FROM Permission p WHERE p.id IN :ids", Object[].class)
+                        .setParameter("ids", permissionIds).getResultList()));
+            }
+            if (!roleIds.isEmpty()) {
+                roles.addAll(roleRows(session.createQuery(
+                        "SELECT r.id, r.status, r.enabled FROM Role r WHERE r.id IN :ids", Object[].class)
+                        .setParameter("ids", roleIds).getResultList()));
+                for (Object[] row : session.createQuery(
+                        "SELECT r.id, p.id, p.code, p.enabled FROM Role r JOIN r.permissions p WHERE r.id IN :ids",
+                        Object[].class).setParameter("ids", roleIds).getResultList()) {
+                    rolePermissions.add(new Link((Long) row[0], (Long) row[1]));
+                    // 角色新关联的权限可能尚未登记
+                    permissions.add(new PermissionRow((Long) row[1], (String) row[2], Boolean.TRUE.equals(row[3])));
+                }
+            }
+            if (!userIds.isEmpty()) {
+                userRoles.addAll(links(session.createQuery(
+                        "SELECT u.id, r.id FROM User u JOIN u.roles r WHERE u.id IN :ids", Object[].class)
+                        .setParameter("ids", userIds).getResultList()));
+            }
+            return new Snapshot(permissions, roles, rolePermissions, userRoles);
+        });
+        apply(userIds, roleIds, permissionIds, rows);
+    }
+
+    /**
+     * 用完整快照替换当前索引
+     */
+    synchronized void replace(Snapshot snapshot) {
+        State next = new State();
+        snapshot.permissions().forEach(next::putPermission);
+        Map<Long, Set<Long>> rolePermissions = group(snapshot.rolePermissions());
+        for (RoleRow role : snapshot.roles()) {
+            next.roles.put(role.id(), new RoleState(role.active(),
+                    rolePermissions.getOrDefault(role.id(), Set.of())));
+        }
+        next.roles.keySet().forEach(next::recomputeRole);
+        group(snapshot.userRoles()).forEach(next::putUserRoles);
+        next.rolesByUser.keySet().forEach(next::recomputeUser);
+        state = next;
+    }
+
+    /**
+     * 增量应用指定ID的最新行
+     */
+    synchronized void apply(Set<Long> userIds, Set<Long> roleIds, Set<Long> permissionIds, Snapshot rows) {
+        State current = state;
+        Set<Long> dirtyRoles = new HashSet<>(roleIds);
+
+        Set<Long> foundPermissions = new HashSet<>();
+        for (PermissionRow permission : rows.permissions()) {
+            current.putPermission(permission);
+            foundPermissions.add(permission.id());
+        }
+        for (Long permissionId : permissionIds) {
+            if (!foundPermissions.contains(permissionId)) {
+                current.removePermission(permissionId);
+            }
+        }
+        if (!permissionIds.isEmpty()) {
+            current.roles.forEach((roleId, role) -> {
+                if (!Collections.disjoint(role.permissionIds(), permissionIds)) {
+                    dirtyRoles.add(roleId);
+                }
+            });
+        }
+
+        Map<Long, Set<Long>> rolePermissions = group(rows.rolePermissions());
+        Set<Long> foundRoles = new HashSet<>();
+        for (RoleRow role : rows.roles()) {
+            current.roles.put(role.id(), new RoleState(role.active(),
+                    rolePermissions.getOrDefault(role.id(), Set.of())));
+            foundRoles.add(role.id());
+        }
+        for (Long roleId : roleIds) {
+            if (!foundRoles.contains(roleId)) {
+                current.roles.remove(roleId);
+            }
+        }
+
+        Set<Long> dirtyUsers = new HashSet<>(userIds);
+        for (Long roleId : dirtyRoles) {
+            current.recomputeRole(roleId);
+            dirtyUsers.addAll(current.usersByRole.getOrDefault(roleId, Set.of()));
+        }
+        Map<Long, Set<Long>> userRoles = group(rows.userRoles());
+        for (Long userId : userIds) {
+            current.putUserRoles(userId, userRoles.getOrDefault(userId, Set.of()));
+        }
+        dirtyUsers.forEach(current::recomputeUser);
+    }
+
+    private <T> T inSession(Function<Session, T> work) {
+        try (Session session = entityManagerFactory.unwrap(SessionFactory.class).openSession()) {
+            session.setDefaultReadOnly(true);
+            session.setCacheMode(CacheMode.IGNORE);
+            session.beginTransaction();
+            try {
+                return work.apply(session);
+            } finally {
+                session.getTransaction().rollback();
+            }
+        }
+    }
+
+    private static List<PermissionRow> permissionRows(List<Object[]> rows) {
+        List<PermissionRow> permissions = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            permissions.add(new PermissionRow((Long) row[0], (String) row[1], Boolean.TRUE.equals(row[2])));
+        }
+        return permissions;
+    }
+
+    private static List<RoleRow> roleRows(List<Object[]> rows) {
+        List<RoleRow> roles = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            roles.add(new RoleRow((Long) row[0], row[1] == Role.RoleStatus.ACTIVE && Boolean.TRUE.equals(row[2])));
+        }
+        return roles;
+    }
+
+    private static List<Link> links(List<Object[]> rows) {
+        List<Link> links = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            links.add(new Link((Long) row[0], (Long) row[1]));
+        }
+        return links;
+    }
+
+    private static Map<Long, Set<Long>> group(Collection<Link> links) {
+        Map<Long, Set<Long>> grouped = new HashMap<>();
+        for (Link link : links) {
+            grouped.computeIfAbsent(link.from(), key -> new HashSet<>()).add(link.to());
+        }
+        return grouped;
+    }
+
+    record PermissionRow(Long id, String code, boolean enabled) {
+    }
+
+    /**
+     * @param active 状态为 ACTIVE 且已启用
+     */
+    record RoleRow(Long id, boolean active) {
+    }
+
+    /**
+     * 角色-权限或用户-角色关联
+     */
+    record Link(Long from, Long to) {
+    }
+
+    record Snapshot(List<PermissionRow> permissions, List<RoleRow> roles, List<Link> rolePermissions,
+                    List<Link> userRoles) {
+    }
+
+    private record PermissionState(String code, boolean enabled, int bit) {
+    }
+
+    private record RoleState(boolean active, Set<Long> permissionIds) {
+    }
+
+    /**
+     * codeBits、userBits 供无锁读取，其余映射只在持有 PermissionIndex 锁时访问
+     */
+    private static final class State {
+
+        private final Map<String, Integer> codeBits = new ConcurrentHashMap<>();
+
+        private final Map<Long, long[]> userBits = new ConcurrentHashMap<>();
+
+        private final Map<Long, PermissionState> permissions = new HashMap<>();
+
+        private final Map<Long, RoleState> roles = new HashMap<>();
+
+        private final Map<Long, long[]> roleBits = new HashMap<>();
+
+        private final Map<Long, Set<Long>> rolesByUser = new HashMap<>();
+
+        private final Map<Long, Set<Long>> usersByRole = new HashMap<>();
+
+        /**
+         * 位序号只增不回收，删除的权限不会让其他权限换位
+         */
+        private int nextBit;
+
+        void putPermission(PermissionRow row) {
+            PermissionState previous = permissions.get(row.id());
+            int bit = previous == null ? nextBit++ : previous.bit();
+            if (previous != null && !previous.code().equals(row.code())) {
+                codeBits.remove(previous.code(), bit);
+            }
+            permissions.put(row.id(), new PermissionState(row.code(), row.enabled(), bit));
+            codeBits.put(row.code(), bit);
+        }
+
+        void removePermission(Long permissionId) {
+            PermissionState removed = permissions.remove(permissionId);
+            if (removed != null) {
+                codeBits.remove(removed.code(), removed.bit());
+            }
+        }
+
+        void putUserRoles(Long userId, Set<Long> roleIds) {
+            Set<Long> previous = rolesByUser.remove(userId);
+            if (previous != null) {
+                for (Long roleId : previous) {
+                    Set<Long> users = usersByRole.get(roleId);
+                    if (users != null && users.remove(userId) && users.isEmpty()) {
+                        usersByRole.remove(roleId);
+                    }
+                }
+            }
+            if (roleIds.isEmpty()) {
+                return;
+            }
+            rolesByUser.put(userId, Set.copyOf(roleIds));
+            for (Long roleId : roleIds) {
+                usersByRole.computeIfAbsent(roleId, key -> new HashSet<>()).add(userId);
+            }
+        }
+
+        void recomputeRole(Long roleId) {
+            RoleState role = roles.get(roleId);
+            if (role == null || !role.active()) {
+                roleBits.remove(roleId);
+                return;
+            }
+            long[] bits = EMPTY;
+            for (Long permissionId : role.permissionIds()) {
+                PermissionState permission = permissions.get(permissionId);
+                if (permission != null && permission.enabled()) {
+                    bits = set(bits, permission.bit());
+                }
+            }
+            roleBits.put(roleId, bits);
+        }
+
+        /**
+         * 位集整体替换，读线程看到的数组不会再被修改
+         */
+        void recomputeUser(Long userId) {
+            long[] bits = EMPTY;
+            for (Long roleId : rolesByUser.getOrDefault(userId, Set.of())) {
+                long[] role = roleBits.get(roleId);
+                if (role == null) {
+                    continue;
+                }
+                if (bits.length < role.length) {
+                    bits = Arrays.copyOf(bits, role.length);
+                }
+                for (int i = 0; i < role.length; i++) {
+                    bits[i] |= role[i];
+                }
+            }
+            if (bits.length == 0) {
+                userBits.remove(userId);
+            } else {
+                userBits.put(userId, bits);
+            }
+        }
+
+        private static long[] set(long[] bits, int bit) {
+            int word = bit >>> 6;
+            long[] result = bits.length > word ? bits : Arrays.copyOf(bits, word + 1);
+            result[word] |= 1L << bit;
+            return result;
+        }
+    }
+}
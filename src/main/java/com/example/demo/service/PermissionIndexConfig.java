@@ -0,0 +1,31 @@
+package com.example.demo.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 权限索引配置
+ * 启动时全量加载 PermissionIndex，并注册用户角色、角色权限变更监听器
+ */
+@Configuration
+public class PermissionIndexConfig {
+
+    @Bean(initMethod = "start")
+    public PermissionIndex permissionIndex(EntityManagerFactory entityManagerFactory) {
+        PermissionIndex index = new PermissionIndex(entityManagerFactory);
+        PermissionIndexListener listener = new PermissionIndexListener(index);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        return index;
+    }
+}
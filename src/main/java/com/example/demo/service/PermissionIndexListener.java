@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Permission;
+import com.example.demo.entity.Role;
+import com.example.demo.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 收集影响 PermissionIndex 的变更
+ * User.roles、Role.permissions 集合的增删（User.addRole、Role.addPermission/removePermission 等）、
+ * 角色/权限的修改和删除在flush时只记录ID；事务提交成功后一次性交给 PermissionIndex 重新读取，回滚则丢弃
+ */
+@Slf4j
+public class PermissionIndexListener implements PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+        PostCollectionRemoveEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String USER_ROLES = User.class.getName() + ".roles";
+
+    private static final String ROLE_PERMISSIONS = Role.class.getName() + ".permissions";
+
+    private final PermissionIndex index;
+
+    /**
+     * 会话 -> 本事务受影响的ID
+     */
+    private final Map<EventSource, PendingChanges> pendingBySession = new ConcurrentHashMap<>();
+
+    public PermissionIndexListener(PermissionIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        recordCollection(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        recordCollection(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        recordCollection(event);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        recordEntity(event.getSession(), event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        recordEntity(event.getSession(), event.getEntity(), event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void recordCollection(AbstractCollectionEvent event) {
+        if (!(event.getAffectedOwnerIdOrNull() instanceof Long ownerId)) {
+            return;
+        }
+        String role = event.getCollection().getRole();
+        if (USER_ROLES.equals(role)) {
+            pending(event.getSession()).userIds.add(ownerId);
+        } else if (ROLE_PERMISSIONS.equals(role)) {
+            pending(event.getSession()).roleIds.add(ownerId);
+        }
+    }
+
+    private void recordEntity(EventSource session, Object entity, Object id) {
+        if (!(id instanceof Long entityId)) {
+            return;
+        }
+        if (entity instanceof Role) {
+            pending(session).roleIds.add(entityId);
+        } else if (entity instanceof Permission) {
+            pending(session).permissionIds.add(entityId);
+        } else if (entity instanceof User) {
+            pending(session).userIds.add(entityId);
+        }
+    }
+
+    private PendingChanges pending(EventSource session) {
+        return pendingBySession.computeIfAbsent(session, key -> {
+            PendingChanges changes = new PendingChanges(key);
+            key.getActionQueue().registerProcess(changes);
+            return changes;
+        });
+    }
+
+    /**
+     * 单个事务内受影响的用户、角色、权限ID
+     */
+    private final class PendingChanges implements AfterTransactionCompletionProcess {
+
+        private final EventSource session;
+
+        private final Set<Long> userIds = new HashSet<>();
+        private final Set<Long> roleIds = new HashSet<>();
+        private final Set<Long> permissionIds = new HashSet<>();
+
+        private PendingChanges(EventSource session) {
+            this.session = session;
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor sessionImplementor) {
+            pendingBySession.remove(session, this);
+            if (!success) {
+                return;
+            }
+            try {
+                index.refresh(userIds, roleIds, permissionIds);
+            } catch (RuntimeException e) {
+                // 索引与数据库不一致，全量重建
+                log.warn("Incremental permission index refresh failed, reloading: {}", e.getMessage());
+                index.reload();
+            }
+        }
+    }
+}
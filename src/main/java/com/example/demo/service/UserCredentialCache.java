@@ -0,0 +1,186 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.User;
+import com.example.demo.entity.User.UserStatus;
+import com.example.demo.repository.UserCredentials;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 登录凭据校验与短期缓存
+ * 缓存中只保存校验通过的 HMAC-SHA256(进程内随机密钥, 用户名+密码) 摘要，不保存密码本身；
+ * 命中且摘要一致时不查库，否则查询 (id, 密码, 状态) 投影后比较。
+ * 所有比较都在等长摘要上用 MessageDigest.isEqual 完成，耗时与密码内容无关；用户不存在时也比较一次，
+ * 响应时间不暴露用户名是否存在。密码、状态或用户名修改、用户删除提交后由 Invalidation 移除缓存
+ */
+public class UserCredentialCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final UserCredentialProperties properties;
+
+    private final Cache<String, byte[]> verified;
+
+    private final SecretKeySpec key;
+
+    /**
+     * 用户不存在时参与比较的摘要
+     */
+    private final byte[] unknownUser;
+
+    private final Counter cacheHits;
+    private final Counter databaseChecks;
+    private final Counter rejected;
+
+    public UserCredentialCache(UserCredentialProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+        byte[] secret = new byte[32];
+        SecureRandom random = new SecureRandom();
+        random.nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        byte[] filler = new byte[16];
+        random.nextBytes(filler);
+        this.unknownUser = digest("", new String(filler, StandardCharsets.ISO_8859_1));
+        this.cacheHits = loginCounter(meterRegistry, "cached");
+        this.databaseChecks = loginCounter(meterRegistry, "database");
+        this.rejected = loginCounter(meterRegistry, "rejected");
+    }
+
+    private static Counter loginCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("user.login.checks")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 校验用户名和密码，只有状态为 ACTIVE 的用户可以登录
+     *
+     * @param loader 按用户名查询凭据投影，缓存未命中或摘要不一致时调用
+     */
+    public boolean verify(String username, String password, Function<String, Optional<UserCredentials>> loader) {
+        if (username == null || password == null) {
+            rejected.increment();
+            return false;
+        }
+        byte[] presented = digest(username, password);
+        byte[] cached = properties.isEnabled() ? verified.getIfPresent(username) : null;
+        if (cached != null && MessageDigest.isEqual(cached, presented)) {
+            cacheHits.increment();
+            return true;
+        }
+
+        databaseChecks.increment();
+        Optional<UserCredentials> credentials = loader.apply(username);
+        byte[] expected = credentials.map(c -> digest(username, c.password())).orElse(unknownUser);
+        boolean matches = MessageDigest.isEqual(expected, presented);
+        if (!matches || credentials.isEmpty() || credentials.get().status() != UserStatus.ACTIVE) {
+            rejected.increment();
+            return false;
+        }
+        if (properties.isEnabled()) {
+            verified.put(username, presented);
+        }
+        return true;
+    }
+
+    /**
+     * 当前事务提交后移除用户的缓存凭据；没有事务时立即移除
+     */
+    public void invalidate(String username) {
+        if (username != null) {
+            TransactionCallbacks.afterCommit(() -> verified.invalidate(username));
+        }
+    }
+
+    /**
+     * 当前事务提交后清空缓存，用于绕过实体事件的批量更新
+     */
+    public void invalidateAll() {
+        TransactionCallbacks.afterCommit(verified::invalidateAll);
+    }
+
+    private byte[] digest(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * User 实体修改或删除提交后移除缓存凭据
+     */
+    public static class Invalidation implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        private final UserCredentialCache cache;
+
+        public Invalidation(UserCredentialCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (!(event.getEntity() instanceof User user)) {
+                return;
+            }
+            Object[] oldState = event.getOldState();
+            if (oldState == null) {
+                cache.verified.invalidate(user.getUsername());
+                return;
+            }
+            EntityPersister persister = event.getPersister();
+            String oldUsername = (String) oldState[persister.getPropertyIndex("username")];
+            if (!Objects.equals(oldUsername, user.getUsername())
+                    || !Objects.equals(oldState[persister.getPropertyIndex("password")], user.getPassword())
+                    || oldState[persister.getPropertyIndex("status")] != user.getStatus()) {
+                cache.verified.invalidate(oldUsername);
+                cache.verified.invalidate(user.getUsername());
+            }
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof User user) {
+                cache.verified.invalidate(user.getUsername());
+            }
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return User.class.equals(persister.getMappedClass());
+        }
+    }
+}
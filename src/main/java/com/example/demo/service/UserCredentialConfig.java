@@ -0,0 +1,33 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 登录凭据缓存配置
+ * 创建 UserCredentialCache 并注册 User 修改/删除的提交后监听器
+ */
+@Configuration
+@EnableConfigurationProperties(UserCredentialProperties.class)
+public class UserCredentialConfig {
+
+    @Bean
+    public UserCredentialCache userCredentialCache(UserCredentialProperties properties,
+                                                   EntityManagerFactory entityManagerFactory,
+                                                   MeterRegistry meterRegistry) {
+        UserCredentialCache cache = new UserCredentialCache(properties, meterRegistry);
+        UserCredentialCache.Invalidation invalidation = new UserCredentialCache.Invalidation(cache);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, invalidation);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, invalidation);
+        return cache;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 登录凭据缓存配置 - 对应 app.user-credentials.*
+ */
+@Data
+@ConfigurationProperties(prefix = "app.user-credentials")
+public class UserCredentialProperties {
+
+    /**
+     * 关闭时每次登录都查库
+     */
+    private boolean enabled = true;
+
+    /**
+     * 校验通过的凭据摘要缓存时间，兜底绕过实体事件的修改（如JPQL批量更新）
+     */
+    private Duration ttl = Duration.ofSeconds(60);
+
+    /**
+     * 最多缓存的用户数
+     */
+    private long maximumSize = 100_000;
+}
@@ -0,0 +1,19 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.User;
+import com.example.demo.entity.User.UserStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户导出行 - 只含用户表自身的列，不含密码；
+ * 序列化时不触碰 roles/userProfiles/orders，实体从会话清除后也可安全写出
+ */
+public record UserExportRow(Long id, String username, String email, String fullName, String phone,
+                            UserStatus status, LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+    public static UserExportRow from(User user) {
+        return new UserExportRow(user.getId(), user.getUsername(), user.getEmail(), user.getFullName(),
+                user.getPhone(), user.getStatus(), user.getCreatedAt(), user.getUpdatedAt());
+    }
+}
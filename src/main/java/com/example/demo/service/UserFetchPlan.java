@@ -0,0 +1,96 @@
+package com.example.demo.service;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 用户查询的抓取计划 - 由调用方列出本次需要的关联，未列出的关联保持未初始化。
+ * 第一个关联随查询通过实体图连接抓取，其余关联按实体上的 @BatchSize / SUBSELECT 批量加载，
+ * 避免多个集合同时连接产生笛卡尔积，也避免逐个用户懒加载的 N+1 查询
+ */
+public record UserFetchPlan(Set<Association> associations) {
+
+    /**
+     * 不加载任何关联
+     */
+    public static final UserFetchPlan NONE = new UserFetchPlan(Set.of());
+
+    public enum Association {
+        ROLES("roles"),
+        /**
+         * 角色及其权限，隐含 ROLES
+         */
+        ROLE_PERMISSIONS("roles.permissions"),
+        PROFILES("userProfiles"),
+        ORDERS("orders");
+
+        private final String path;
+
+        Association(String path) {
+            this.path = path;
+        }
+
+        /**
+         * 以 User 为根的属性路径
+         */
+        public String path() {
+            return path;
+        }
+    }
+
+    public UserFetchPlan {
+        EnumSet<Association> normalized = EnumSet.noneOf(Association.class);
+        normalized.addAll(associations);
+        if (normalized.contains(Association.ROLE_PERMISSIONS)) {
+            normalized.remove(Association.ROLES);
+        }
+        associations = Collections.unmodifiableSet(normalized);
+    }
+
+    public static UserFetchPlan of(Association... associations) {
+        return new UserFetchPlan(Set.copyOf(List.of(associations)));
+    }
+
+    /**
+     * 解析逗号分隔的属性路径（roles、roles.permissions、userProfiles、orders，不区分大小写）
+     *
+     * @throws IllegalArgumentException 包含未知的关联
+     */
+    public static UserFetchPlan parse(String paths) {
+        if (paths == null || paths.isBlank()) {
+            return NONE;
+        }
+        EnumSet<Association> associations = EnumSet.noneOf(Association.class);
+        for (String path : paths.split(",")) {
+            String trimmed = path.trim();
+            if (!trimmed.isEmpty()) {
+                associations.add(resolve(trimmed));
+            }
+        }
+        return new UserFetchPlan(associations);
+    }
+
+    private static Association resolve(String path) {
+        String normalized = path.toLowerCase(Locale.ROOT);
+        for (Association association : Association.values()) {
+            if (association.path().toLowerCase(Locale.ROOT).equals(normalized)) {
+                return association;
+            }
+        }
+        throw new IllegalArgumentException("Unknown user association: " + path);
+    }
+
+    public boolean includes(Association association) {
+        return associations.contains(association);
+    }
+
+    /**
+     * 随查询连接抓取的关联，按声明顺序取第一个；计划为空时返回null
+     */
+    Association joinFetched() {
+        return associations.isEmpty() ? null : associations.iterator().next();
+    }
+}
@@ -0,0 +1,430 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.User;
+import com.example.demo.entity.UserImportJob;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 用户流式批量导入服务
+ * 逐行解析NDJSON/CSV输入，按块通过StatelessSession批量插入并提交，
+ * 内存占用只与块大小有关；失败后可按任务ID续传，已提交的行会被跳过。
+ * 任务状态和断点保存在 user_import_jobs 表中，是唯一的事实来源：
+ * 续传通过条件更新把 FAILED 切换为 RUNNING 并登记本实例为执行者，每块数据与断点同事务提交，
+ * 断点更新只在本实例仍是执行者时生效，因此同一任务任何时候只有一个写入者
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    public enum Format { NDJSON, CSV }
+
+    public enum JobState { RUNNING, COMPLETED, FAILED }
+
+    private static final int MAX_CHUNK_SIZE = 10_000;
+
+    /**
+     * RUNNING 任务的心跳超过该时长未更新，视为执行者已退出，可以续传。
+     * 心跳随每块提交刷新，需大于单块的读取和提交耗时
+     */
+    static final Duration STALE_AFTER = Duration.ofMinutes(10);
+
+    private final SessionFactory sessionFactory;
+
+    private final ObjectMapper objectMapper;
+
+    private final UserKeyRegistry userKeyRegistry;
+
+    /**
+     * 本实例的执行者标识，写入任务的 owner 列
+     */
+    private final String owner = UUID.randomUUID().toString();
+
+    /**
+     * 本实例正在执行的任务，执行期间不会被淘汰
+     */
+    private final Map<String, ImportProgress> running = new ConcurrentHashMap<>();
+
+    /**
+     * 已完成任务的进度，保留一天；状态可能变化的任务每次从表中读取
+     */
+    private final Cache<String, ImportProgress> completed = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(Duration.ofDays(1))
+            .build();
+
+    public UserImportService(EntityManagerFactory entityManagerFactory, ObjectMapper objectMapper,
+                             UserKeyRegistry userKeyRegistry) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.objectMapper = objectMapper;
+        this.userKeyRegistry = userKeyRegistry;
+    }
+
+    /**
+     * 查询导入任务进度
+     */
+    public Optional<ImportProgress> getProgress(String jobId) {
+        ImportProgress progress = running.get(jobId);
+        if (progress == null) {
+            progress = completed.getIfPresent(jobId);
+        }
+        if (progress == null) {
+            progress = loadJob(jobId);
+            if (progress != null && progress.getState() == JobState.COMPLETED) {
+                completed.put(jobId, progress);
+            }
+        }
+        return Optional.ofNullable(progress);
+    }
+
+    /**
+     * 导入用户数据
+     *
+     * @param input     NDJSON（每行一个JSON对象）或带表头的CSV
+     * @param chunkSize 每个事务提交的行数
+     * @param jobId     续传时传入上次失败的任务ID，为空则新建任务
+     * @throws IllegalArgumentException chunkSize 超出范围或任务不存在
+     * @throws IllegalStateException    任务不是失败状态，或正由其他请求执行
+     */
+    public ImportProgress importUsers(InputStream input, Format format, int chunkSize, String jobId) throws IOException {
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunkSize must be between 1 and " + MAX_CHUNK_SIZE);
+        }
+        ImportProgress progress = jobId != null && !jobId.isEmpty() ? resume(jobId) : start();
+        running.put(progress.getJobId(), progress);
+        long skipRows = progress.getRowsCommitted();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+             StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(Math.min(chunkSize, 100));
+            String[] header = format == Format.CSV ? readCsvHeader(reader) : null;
+            List<User> chunk = new ArrayList<>(chunkSize);
+            long row = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                row++;
+                if (row <= skipRows) {
+                    continue;
+                }
+                progress.setRowsRead(row);
+                chunk.add(format == Format.CSV ? parseCsvRow(header, line, row) : parseJsonRow(line, row));
+                if (chunk.size() == chunkSize) {
+                    commitChunk(session, chunk, progress);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                commitChunk(session, chunk, progress);
+            }
+            progress.setFinishedAt(LocalDateTime.now());
+            finish(progress, JobState.COMPLETED);
+            progress.setState(JobState.COMPLETED);
+            completed.put(progress.getJobId(), progress);
+            log.info("User import {} completed: {} rows committed", progress.getJobId(), progress.getRowsCommitted());
+        } catch (RuntimeException | IOException ex) {
+            progress.setError(ex.getMessage());
+            progress.setFinishedAt(LocalDateTime.now());
+            try {
+                finish(progress, JobState.FAILED);
+            } catch (RuntimeException saveEx) {
+                // 表中仍为RUNNING，心跳过期后同样可以续传
+                log.warn("Failed to record failure of user import {}: {}", progress.getJobId(), saveEx.getMessage());
+            }
+            progress.setState(JobState.FAILED);
+            log.warn("User import {} failed after {} committed rows: {}",
+                    progress.getJobId(), progress.getRowsCommitted(), ex.getMessage());
+        } finally {
+            running.remove(progress.getJobId(), progress);
+        }
+        return progress;
+    }
+
+    private ImportProgress start() {
+        LocalDateTime now = LocalDateTime.now();
+        UserImportJob job = new UserImportJob();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setState(JobState.RUNNING.name());
+        job.setOwner(owner);
+        job.setHeartbeatAt(now);
+        job.setStartedAt(now);
+        inTransaction(session -> session.insert(job));
+        return toProgress(job);
+    }
+
+    /**
+     * 条件更新：只有 FAILED 或心跳已过期的 RUNNING 任务会切换为由本实例执行，
+     * 并发的续传请求只有一个更新成功
+     */
+    private ImportProgress resume(String jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = inTransaction(session -> session.createMutationQuery(
+                        "UPDATE UserImportJob j SET j.state = :running, j.owner = :owner, j.heartbeatAt = :now, " +
+                        "j.resumeCount = j.resumeCount + 1, j.error = NULL, j.finishedAt = NULL " +
+                        "WHERE j.jobId = :jobId AND (j.state = :failed " +
+                        "OR (j.state = :running AND j.heartbeatAt < :staleBefore))")
+                .setParameter("running", JobState.RUNNING.name())
+                .setParameter("failed", JobState.FAILED.name())
+                .setParameter("owner", owner)
+                .setParameter("now", now)
+                .setParameter("staleBefore", now.minus(STALE_AFTER))
+                .setParameter("jobId", jobId)
+                .executeUpdate());
+        UserImportJob job = findJob(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("Import job not found: " + jobId);
+        }
+        if (claimed == 0) {
+            throw new IllegalStateException("Only failed import jobs can be resumed: " + jobId
+                    + " is " + job.getState());
+        }
+        return toProgress(job);
+    }
+
+    private void commitChunk(StatelessSession session, List<User> chunk, ImportProgress progress) {
+        long rowsCommitted = progress.getRowsCommitted() + chunk.size();
+        long chunksCommitted = progress.getChunksCommitted() + 1;
+        Transaction tx = session.beginTransaction();
+        try {
+            for (User user : chunk) {
+                session.insert(user);
+                // StatelessSession 不经过持久化上下文，提交前显式登记用户名和邮箱
+                userKeyRegistry.register(user);
+            }
+            // 断点与本块数据同事务提交；任务已被其他请求接管时整块回滚，避免两个写入者推进同一断点
+            int updated = session.createMutationQuery(
+                            "UPDATE UserImportJob j SET j.rowsCommitted = :rows, j.chunksCommitted = :chunks, " +
+                            "j.heartbeatAt = :now WHERE j.jobId = :jobId AND j.owner = :owner AND j.state = :running")
+                    .setParameter("rows", rowsCommitted)
+                    .setParameter("chunks", chunksCommitted)
+                    .setParameter("now", LocalDateTime.now())
+                    .setParameter("jobId", progress.getJobId())
+                    .setParameter("owner", owner)
+                    .setParameter("running", JobState.RUNNING.name())
+                    .executeUpdate();
+            if (updated == 0) {
+                throw new IllegalStateException("Import job was taken over by another resume: " + progress.getJobId());
+            }
+            tx.commit();
+        } catch (RuntimeException ex) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw ex;
+        }
+        progress.setRowsCommitted(rowsCommitted);
+        progress.setChunksCommitted(chunksCommitted);
+        chunk.clear();
+    }
+
+    /**
+     * 记录任务结束，只在本实例仍是执行者时生效
+     */
+    private void finish(ImportProgress progress, JobState state) {
+        String error = progress.getError();
+        int updated = inTransaction(session -> session.createMutationQuery(
+                        "UPDATE UserImportJob j SET j.state = :state, j.error = :error, j.finishedAt = :finishedAt " +
+                        "WHERE j.jobId = :jobId AND j.owner = :owner AND j.state = :running")
+                .setParameter("state", state.name())
+                .setParameter("error", error != null && error.length() > 1000 ? error.substring(0, 1000) : error)
+                .setParameter("finishedAt", progress.getFinishedAt())
+                .setParameter("jobId", progress.getJobId())
+                .setParameter("owner", owner)
+                .setParameter("running", JobState.RUNNING.name())
+                .executeUpdate());
+        if (updated == 0) {
+            log.warn("User import {} is no longer owned by this instance, state {} not recorded",
+                    progress.getJobId(), state);
+        }
+    }
+
+    private <T> T inTransaction(Function<StatelessSession, T> work) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                T result = work.apply(session);
+                tx.commit();
+                return result;
+            } catch (RuntimeException ex) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw ex;
+            }
+        }
+    }
+
+    private UserImportJob findJob(String jobId) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return session.get(UserImportJob.class, jobId);
+        }
+    }
+
+    /**
+     * 从表中加载其他实例执行或已结束的任务；心跳过期的 RUNNING 任务按中断处理，可以续传
+     */
+    private ImportProgress loadJob(String jobId) {
+        UserImportJob job = findJob(jobId);
+        if (job == null) {
+            return null;
+        }
+        ImportProgress progress = toProgress(job);
+        if (progress.getState() == JobState.RUNNING
+                && job.getHeartbeatAt().isBefore(LocalDateTime.now().minus(STALE_AFTER))) {
+            progress.setState(JobState.FAILED);
+            progress.setError("Import interrupted");
+        }
+        return progress;
+    }
+
+    private static ImportProgress toProgress(UserImportJob job) {
+        ImportProgress progress = new ImportProgress();
+        progress.setJobId(job.getJobId());
+        progress.setState(JobState.valueOf(job.getState()));
+        progress.setError(job.getError());
+        progress.setRowsRead(job.getRowsCommitted());
+        progress.setRowsCommitted(job.getRowsCommitted());
+        progress.setChunksCommitted(job.getChunksCommitted());
+        progress.setResumeCount(job.getResumeCount());
+        progress.setStartedAt(job.getStartedAt());
+        progress.setFinishedAt(job.getFinishedAt());
+        return progress;
+    }
+
+    private User parseJsonRow(String line, long row) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            return newUser(text(node, "username"), text(node, "email"), text(node, "password"),
+                    text(node, "fullName"), text(node, "phone"), text(node, "status"), row);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Invalid JSON at row " + row + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    private String[] readCsvHeader(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return new String[0];
+        }
+        List<String> header = splitCsv(line);
+        return header.stream().map(String::trim).toArray(String[]::new);
+    }
+
+    private User parseCsvRow(String[] header, String line, long row) {
+        List<String> values = splitCsv(line);
+        String username = null, email = null, password = null, fullName = null, phone = null, status = null;
+        for (int i = 0; i < header.length && i < values.size(); i++) {
+            String value = values.get(i);
+            switch (header[i]) {
+                case "username" -> username = value;
+                case "email" -> email = value;
+                case "password" -> password = value;
+                case "fullName", "full_name" -> fullName = value;
+                case "phone" -> phone = value;
+                case "status" -> status = value;
+                default -> { }
+            }
+        }
+        return newUser(username, email, password, fullName, phone, status, row);
+    }
+
+    /**
+     * 拆分一行CSV，支持双引号包裹的字段和 "" 转义
+     */
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static User newUser(String username, String email, String password,
+                                String fullName, String phone, String status, long row) {
+        if (isEmpty(username) || isEmpty(email) || isEmpty(password)) {
+            throw new IllegalArgumentException("username, email and password are required at row " + row);
+        }
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPassword(password);
+        user.setFullName(isEmpty(fullName) ? null : fullName);
+        user.setPhone(isEmpty(phone) ? null : phone);
+        user.setStatus(isEmpty(status) ? User.UserStatus.ACTIVE : User.UserStatus.valueOf(status.trim().toUpperCase()));
+        // StatelessSession不保证执行@CreationTimestamp等内存值生成，这里显式赋值
+        LocalDateTime now = LocalDateTime.now();
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+        return user;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /**
+     * 导入任务进度
+     */
+    @Data
+    public static class ImportProgress {
+        private String jobId;
+        private volatile JobState state;
+        private volatile long rowsRead;
+        private volatile long rowsCommitted;
+        private volatile long chunksCommitted;
+        private volatile int resumeCount;
+        private volatile String error;
+        private LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+    }
+}
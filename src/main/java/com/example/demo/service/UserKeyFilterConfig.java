@@ -0,0 +1,38 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 用户名/邮箱存在性过滤器配置
+ * 创建 UserKeyRegistry 并注册 User 实体变更监听器；app.user-key-filter.enabled=false 时不加载，检查全部查库
+ */
+@Configuration
+@EnableConfigurationProperties(UserKeyFilterProperties.class)
+public class UserKeyFilterConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public UserKeyRegistry userKeyRegistry(UserKeyFilterProperties properties,
+                                           EntityManagerFactory entityManagerFactory,
+                                           MeterRegistry meterRegistry) {
+        UserKeyRegistry userKeyRegistry = new UserKeyRegistry(properties, entityManagerFactory, meterRegistry);
+        if (properties.isEnabled()) {
+            UserKeyListener listener = new UserKeyListener(userKeyRegistry);
+            UserKeyListener.Eviction eviction = new UserKeyListener.Eviction(userKeyRegistry);
+            EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry()
+                    .getService(EventListenerRegistry.class);
+            registry.appendListeners(EventType.POST_INSERT, listener);
+            registry.appendListeners(EventType.POST_UPDATE, listener);
+            registry.appendListeners(EventType.POST_COMMIT_UPDATE, eviction);
+            registry.appendListeners(EventType.POST_COMMIT_DELETE, eviction);
+        }
+        return userKeyRegistry;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 用户名/邮箱存在性过滤器配置 - 对应 app.user-key-filter.*
+ */
+@Data
+@ConfigurationProperties(prefix = "app.user-key-filter")
+public class UserKeyFilterProperties {
+
+    /**
+     * 关闭时存在性检查全部查询数据库
+     */
+    private boolean enabled = true;
+
+    /**
+     * 布隆过滤器按此数量分配位数组，用户数超过后误判率上升（只会多查数据库，不会漏判）
+     */
+    private long expectedInsertions = 1_000_000;
+
+    /**
+     * 期望误判率，即"可能存在"实际不存在、需要查库确认的比例
+     */
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * 已确认存在的键的缓存容量（用户名、邮箱各一份）
+     */
+    private long confirmedCacheSize = 10_000;
+
+    /**
+     * 已确认存在的键的缓存时间，兜底绕过实体事件的删除（如JPQL批量删除）
+     */
+    private Duration confirmedTtl = Duration.ofMinutes(10);
+}
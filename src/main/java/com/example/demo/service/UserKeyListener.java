@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.User;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * 保持 UserKeyRegistry 与 users 表一致
+ * 插入和修改在flush执行SQL后就写入布隆过滤器（事务回滚只多一个误判位）；
+ * 修改和删除在提交后才把旧用户名/邮箱移出确认缓存，避免并发检查在提交前重新确认旧值
+ */
+public class UserKeyListener implements PostInsertEventListener, PostUpdateEventListener {
+
+    private final UserKeyRegistry registry;
+
+    public UserKeyListener(UserKeyRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof User user) {
+            registry.register(user);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof User user) {
+            registry.register(user);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 提交后移除旧键的确认记录
+     */
+    public static class Eviction implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        private final UserKeyRegistry registry;
+
+        public Eviction(UserKeyRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            if (event.getEntity() instanceof User && event.getOldState() != null) {
+                EntityPersister persister = event.getPersister();
+                Object[] oldState = event.getOldState();
+                registry.evict((String) oldState[persister.getPropertyIndex("username")],
+                        (String) oldState[persister.getPropertyIndex("email")]);
+            }
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            if (event.getEntity() instanceof User user) {
+                registry.evict(user.getUsername(), user.getEmail());
+            }
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return User.class.equals(persister.getMappedClass());
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.util.function.Predicate;
+
+/**
+ * 用户名/邮箱存在性过滤
+ * 每个键一个布隆过滤器加一个"已确认存在"缓存：过滤器判定不存在时直接返回，不访问数据库；
+ * 只有"可能存在"且未确认的键才查库，查到存在后放入确认缓存。
+ * 启动后在后台线程从 users 表加载，加载完成前所有检查直接查库；
+ * 新增和修改由 UserKeyListener 在flush时写入过滤器，修改和删除提交后从确认缓存中移除旧键。
+ * 过滤器不支持删除，已删除的键只会多一次查库，不会误判为不存在
+ */
+@Slf4j
+public class UserKeyRegistry {
+
+    private static final int LOAD_FETCH_SIZE = 1_000;
+
+    private final UserKeyFilterProperties properties;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Membership usernames;
+
+    private final Membership emails;
+
+    private volatile boolean ready;
+
+    private Thread loader;
+
+    public UserKeyRegistry(UserKeyFilterProperties properties, EntityManagerFactory entityManagerFactory,
+                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.entityManagerFactory = entityManagerFactory;
+        this.usernames = new Membership("username", properties, meterRegistry);
+        this.emails = new Membership("email", properties, meterRegistry);
+    }
+
+    /**
+     * 在后台线程加载现有用户，不阻塞启动
+     */
+    public synchronized void start() {
+        if (!properties.isEnabled() || loader != null) {
+            return;
+        }
+        loader = new Thread(this::load, "user-key-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public synchronized void close() {
+        if (loader != null) {
+            loader.interrupt();
+        }
+    }
+
+    /**
+     * 用前向游标读取全部用户名和邮箱；失败时保持未就绪，检查继续查库
+     */
+    void load() {
+        long start = System.nanoTime();
+        long count = 0;
+        try (Session session = entityManagerFactory.unwrap(SessionFactory.class).openSession()) {
+            session.setDefaultReadOnly(true);
+            session.beginTransaction();
+            try (ScrollableResults<Object[]> rows = session
+                    .createQuery("SELECT u.username, u.email FROM User u", Object[].class)
+                    .setFetchSize(LOAD_FETCH_SIZE)
+                    .setCacheMode(CacheMode.IGNORE)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (rows.next()) {
+                    Object[] row = rows.get();
+                    register((String) row[0], (String) row[1]);
+                    count++;
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                }
+            } finally {
+                session.getTransaction().rollback();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to load user keys, existence checks will query the database: {}", e.getMessage());
+            return;
+        }
+        markReady(count);
+        log.info("Loaded {} user keys in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 现有用户已全部登记，此后过滤器的否定结果可信
+     */
+    void markReady(long loadedKeys) {
+        ready = true;
+        if (loadedKeys > properties.getExpectedInsertions()) {
+            log.warn("Loaded {} user keys, more than expected-insertions {}; false positive rate will exceed {}",
+                    loadedKeys, properties.getExpectedInsertions(), properties.getFalsePositiveRate());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 用户名是否存在
+     *
+     * @param database 查库确认，只在过滤器判定可能存在且未确认时调用
+     */
+    public boolean usernameExists(String username, Predicate<String> database) {
+        return usernames.exists(username, database);
+    }
+
+    /**
+     * 邮箱是否存在
+     *
+     * @param database 查库确认，只在过滤器判定可能存在且未确认时调用
+     */
+    public boolean emailExists(String email, Predicate<String> database) {
+        return emails.exists(email, database);
+    }
+
+    /**
+     * 记录用户的用户名和邮箱，必须在写入提交前调用
+     */
+    public void register(User user) {
+        register(user.getUsername(), user.getEmail());
+    }
+
+    void register(String username, String email) {
+        usernames.add(username);
+        emails.add(email);
+    }
+
+    /**
+     * 用户名或邮箱不再属于某个用户（修改或删除已提交）
+     */
+    void evict(String username, String email) {
+        usernames.evict(username);
+        emails.evict(email);
+    }
+
+    private final class Membership {
+
+        private final ConcurrentBloomFilter filter;
+
+        private final Cache<String, Boolean> confirmed;
+
+        private final Counter negative;
+        private final Counter cached;
+        private final Counter database;
+        private final Counter bypass;
+
+        private Membership(String key, UserKeyFilterProperties properties, MeterRegistry meterRegistry) {
+            this.filter = new ConcurrentBloomFilter(properties.getExpectedInsertions(),
+                    properties.getFalsePositiveRate());
+            this.confirmed = Caffeine.newBuilder()
+                    .maximumSize(properties.getConfirmedCacheSize())
+                    .expireAfterWrite(properties.getConfirmedTtl())
+                    .build();
+            this.negative = checkCounter(meterRegistry, key, "negative");
+            this.cached = checkCounter(meterRegistry, key, "cached");
+            this.database = checkCounter(meterRegistry, key, "database");
+            this.bypass = checkCounter(meterRegistry, key, "bypass");
+        }
+
+        boolean exists(String value, Predicate<String> query) {
+            if (value == null || !ready) {
+                bypass.increment();
+                return query.test(value);
+            }
+            if (!filter.mightContain(value)) {
+                negative.increment();
+                return false;
+            }
+            if (confirmed.getIfPresent(value) != null) {
+                cached.increment();
+                return true;
+            }
+            database.increment();
+            boolean exists = query.test(value);
+            if (exists) {
+                confirmed.put(value, Boolean.TRUE);
+            }
+            return exists;
+        }
+
+        void add(String value) {
+            if (value != null) {
+                filter.put(value);
+            }
+        }
+
+        void evict(String value) {
+            if (value != null) {
+                confirmed.invalidate(value);
+            }
+        }
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, String key, String result) {
+        return Counter.builder("user.key_filter.checks")
+                .tag("key", key)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
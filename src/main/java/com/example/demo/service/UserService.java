@@ -2,9 +2,11 @@ package com.example.demo.service;
 
 import com.example.demo.entity.User;
 import com.example.demo.entity.User.UserStatus;
+import com.example.demo.repository.UserSummary;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * 用户服务接口
@@ -51,6 +53,14 @@ public interface UserService {
      */
     List<User> getAllUsers();
     
+    /**
+     * 在只读事务内按ID顺序逐个处理全部用户
+     * 回调返回后实体可能已从会话清除，回调中不要访问延迟关联，也不要保留实体引用
+     *
+     * @return 处理的用户数
+     */
+    long forEachUser(Consumer<? super User> action);
+    
     /**
      * 根据状态获取用户列表
      */
@@ -61,6 +71,20 @@ public interface UserService {
      */
     List<User> searchUsersByName(String name);
     
+    /**
+     * 根据ID获取用户摘要
+     */
+    Optional<UserSummary> findSummaryById(Long id);
+    
+    /**
+     * 在只读事务内逐行处理用户摘要，不加载用户实体
+     *
+     * @param status 状态过滤，可为空
+     * @param name   姓名模糊匹配，可为空
+     * @return 处理的行数
+     */
+    long forEachUserSummary(UserStatus status, String name, Consumer<? super UserSummary> action);
+    
     /**
      * 检查用户名是否存在
      */
@@ -82,7 +106,7 @@ public interface UserService {
     long countActiveUsers();
     
     /**
-     * 验证用户密码
+     * 验证用户密码，只有状态为 ACTIVE 的用户可以通过
      */
     boolean validatePassword(String username, String password);
 }
\ No newline at end of file
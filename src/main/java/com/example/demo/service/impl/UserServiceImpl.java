@@ -2,15 +2,32 @@ package com.example.demo.service.impl;
 
 import com.example.demo.entity.User;
 import com.example.demo.entity.User.UserStatus;
+import com.example.demo.influxdb.InfluxWritePipeline;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.UserSummary;
+import com.example.demo.service.TransactionCallbacks;
+import com.example.demo.service.UserCredentialCache;
+import com.example.demo.service.UserKeyRegistry;
 import com.example.demo.service.UserService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.influxdb.dto.Point;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 用户服务实现类
@@ -21,8 +38,22 @@ import java.util.Optional;
 @Transactional
 public class UserServiceImpl implements UserService {
     
+    /**
+     * 全量遍历时每次从数据库取回的行数，也是清空会话的间隔
+     */
+    private static final int SCROLL_FETCH_SIZE = 500;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     private final UserRepository userRepository;
     
+    private final UserKeyRegistry userKeyRegistry;
+    
+    private final UserCredentialCache userCredentialCache;
+    
+    private final ObjectProvider<InfluxWritePipeline> influxWritePipeline;
+    
     @Override
     public User createUser(User user) {
         log.info("Creating new user with username: {}", user.getUsername());
@@ -35,7 +66,15 @@ public class UserServiceImpl implements UserService {
             throw new IllegalArgumentException("Email already exists: " + user.getEmail());
         }
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // 注册事件在事务提交后写入InfluxDB（未启用时跳过），回滚的注册不计数
+        TransactionCallbacks.afterCommit(() -> influxWritePipeline.ifAvailable(pipeline -> pipeline.write(
+                Point.measurement("user_signups")
+                        .time(System.currentTimeMillis(), TimeUnit.MILLISECONDS)
+                        .tag("status", String.valueOf(saved.getStatus()))
+                        .addField("count", 1L)
+                        .build())));
+        return saved;
     }
     
     @Override
@@ -90,6 +129,28 @@ public class UserServiceImpl implements UserService {
         return userRepository.findAll();
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public long forEachUser(Consumer<? super User> action) {
+        Session session = entityManager.unwrap(Session.class);
+        long count = 0;
+        try (ScrollableResults<User> users = session.createQuery("FROM User u ORDER BY u.id", User.class)
+                .setReadOnly(true)
+                .setFetchSize(SCROLL_FETCH_SIZE)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (users.next()) {
+                action.accept(users.get());
+                if (++count % SCROLL_FETCH_SIZE == 0) {
+                    // 已处理的实体不再需要，避免持久化上下文随行数增长
+                    session.clear();
+                }
+            }
+        }
+        session.clear();
+        return count;
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public List<User> getUsersByStatus(UserStatus status) {
@@ -104,14 +165,36 @@ public class UserServiceImpl implements UserService {
     
     @Override
     @Transactional(readOnly = true)
-    public boolean existsByUsername(String username) {
-        return userRepository.existsByUsername(username);
+    public Optional<UserSummary> findSummaryById(Long id) {
+        return userRepository.findSummaryById(id);
     }
     
     @Override
     @Transactional(readOnly = true)
+    public long forEachUserSummary(UserStatus status, String name, Consumer<? super UserSummary> action) {
+        long count = 0;
+        try (Stream<UserSummary> summaries = userRepository.streamSummaries(status, name)) {
+            for (UserSummary summary : (Iterable<UserSummary>) summaries::iterator) {
+                action.accept(summary);
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 不主动开启事务：过滤器判定不存在时不占用数据库连接，需要查库时由Repository自行开启只读事务
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public boolean existsByUsername(String username) {
+        return userKeyRegistry.usernameExists(username, userRepository::existsByUsername);
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+        return userKeyRegistry.emailExists(email, userRepository::existsByEmail);
     }
     
     @Override
@@ -131,10 +214,12 @@ public class UserServiceImpl implements UserService {
         return userRepository.countActiveUsers();
     }
     
+    /**
+     * 凭据缓存命中时不占用数据库连接，未命中时只查询 (id, 密码, 状态)
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public boolean validatePassword(String username, String password) {
-        Optional<User> user = findByUsername(username);
-        return user.isPresent() && user.get().getPassword().equals(password);
+        return userCredentialCache.verify(username, password, userRepository::findCredentialsByUsername);
     }
 }
\ No newline at end of file
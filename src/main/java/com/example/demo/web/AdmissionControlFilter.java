@@ -0,0 +1,136 @@
+package com.example.demo.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 请求准入控制
+ * 用信号量把同时处理的请求数限制在数据库连接池容量附近：超出的请求在这里限时排队，超时直接返回503，
+ * 而不是全部进入业务代码后堆在连接池的 getConnection 上。
+ * 虚拟线程模式下请求线程几乎没有成本，需要由它来保护下游的有限资源。
+ * 异步请求（如流式响应）在异步处理结束时才释放名额
+ */
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+
+    private final int maxConcurrent;
+
+    private final long acquireTimeoutNanos;
+
+    private final List<String> excludePaths;
+
+    private final Counter rejectedRequests;
+
+    private final Timer waitTimer;
+
+    public AdmissionControlFilter(int maxConcurrent, WebConcurrencyProperties.Admission settings,
+                                  MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.acquireTimeoutNanos = settings.getAcquireTimeout().toNanos();
+        this.excludePaths = List.copyOf(settings.getExcludePaths());
+
+        Gauge.builder("http.admission.active", permits, semaphore -> maxConcurrent - semaphore.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("http.admission.queued", permits, Semaphore::getQueueLength)
+                .register(meterRegistry);
+        this.rejectedRequests = Counter.builder("http.admission.rejected").register(meterRegistry);
+        this.waitTimer = Timer.builder("http.admission.wait").register(meterRegistry);
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String excluded : excludePaths) {
+            if (path.startsWith(excluded)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejectedRequests.increment();
+            log.debug("Rejected {} {}: {} requests in progress", request.getMethod(), request.getRequestURI(),
+                    maxConcurrent);
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "服务繁忙，请稍后重试");
+            return;
+        }
+
+        boolean releaseLater = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener());
+                releaseLater = true;
+            }
+        } finally {
+            if (!releaseLater) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * 异步请求结束（完成、出错或超时后总会触发 onComplete）时释放名额
+     */
+    private final class ReleasingListener implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 虚拟线程钉住（pinned）监控
+ * 虚拟线程在 synchronized 块或本地方法中阻塞时无法从载体线程卸载，JDBC驱动和连接池里的同步代码是常见来源。
+ * 通过JFR的 jdk.VirtualThreadPinned 事件发现这种情况：按发生位置计数（jvm.threads.virtual.pinned），
+ * 每个位置首次出现时打印完整调用栈
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final int LOGGED_FRAMES = 20;
+
+    private final Duration threshold;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer pinnedTimer;
+
+    /**
+     * 发生位置 -> 次数
+     */
+    private final Map<String, Counter> sites = new ConcurrentHashMap<>();
+
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.meterRegistry = meterRegistry;
+        this.pinnedTimer = Timer.builder("jvm.threads.virtual.pinned.duration").register(meterRegistry);
+    }
+
+    public synchronized void start() {
+        if (stream != null) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Monitoring virtual thread pinning longer than {} ms", threshold.toMillis());
+    }
+
+    public synchronized void close() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    /**
+     * 各位置的钉住次数
+     */
+    public Map<String, Double> pinnedSites() {
+        Map<String, Double> counts = new ConcurrentHashMap<>();
+        sites.forEach((site, counter) -> counts.put(site, counter.count()));
+        return counts;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedTimer.record(event.getDuration().toNanos(), TimeUnit.NANOSECONDS);
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        String site = site(stackTrace);
+        sites.computeIfAbsent(site, key -> {
+            log.warn("Virtual thread pinned for {} ms at {}{}", event.getDuration().toMillis(), key,
+                    format(stackTrace));
+            return Counter.builder("jvm.threads.virtual.pinned")
+                    .tag("site", key)
+                    .register(meterRegistry);
+        }).increment();
+    }
+
+    /**
+     * 取调用栈中第一个非JDK帧作为发生位置，通常是持锁的驱动或连接池代码
+     */
+    static String site(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName();
+            }
+        }
+        return "jdk";
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder();
+        int count = 0;
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (count++ == LOGGED_FRAMES) {
+                builder.append(System.lineSeparator()).append("\t...");
+                break;
+            }
+            builder.append(System.lineSeparator()).append("\tat ")
+                   .append(frame.getMethod().getType().getName()).append('.')
+                   .append(frame.getMethod().getName()).append(':').append(frame.getLineNumber());
+        }
+        return builder.toString();
+    }
+}
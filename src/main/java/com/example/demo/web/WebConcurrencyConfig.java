@@ -0,0 +1,65 @@
+package com.example.demo.web;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.example.demo.other.ReadWriteDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Web层执行模式配置
+ * spring.threads.virtual.enabled=true 时Tomcat和异步请求改用虚拟线程（Spring Boot自动配置），
+ * 同时启动钉住监控；app.web.admission.enabled=true 时按连接池容量限制同时处理的请求数
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(WebConcurrencyProperties.class)
+public class WebConcurrencyConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.web.admission", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(WebConcurrencyProperties properties,
+                                                                                 DataSource dataSource,
+                                                                                 MeterRegistry meterRegistry) {
+        WebConcurrencyProperties.Admission settings = properties.getAdmission();
+        int maxConcurrent = settings.getMaxConcurrent() > 0 ? settings.getMaxConcurrent() : poolCapacity(dataSource);
+        log.info("Request admission limited to {} concurrent requests", maxConcurrent);
+
+        FilterRegistrationBean<AdmissionControlFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionControlFilter(maxConcurrent, settings, meterRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    @ConditionalOnProperty(prefix = "app.web.pinning", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(WebConcurrencyProperties properties,
+                                                                   MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(properties.getPinning().getThreshold(), meterRegistry);
+    }
+
+    /**
+     * 数据库连接池的最大连接数，启用只读副本时加上所有副本的连接数
+     */
+    private static int poolCapacity(DataSource dataSource) {
+        if (dataSource instanceof ReadWriteDataSource readWriteDataSource) {
+            return poolCapacity(readWriteDataSource.getTargetDataSource()) + readWriteDataSource.getReplicas().capacity();
+        }
+        if (dataSource instanceof DruidDataSource druidDataSource) {
+            return druidDataSource.getMaxActive();
+        }
+        throw new IllegalStateException("Cannot derive request admission limit from " + dataSource.getClass().getName()
+                + ", set app.web.admission.max-concurrent");
+    }
+}
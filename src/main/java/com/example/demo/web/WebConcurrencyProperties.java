@@ -0,0 +1,59 @@
+package com.example.demo.web;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Web层并发控制配置 - 对应 app.web.*
+ * 请求线程模型由 spring.threads.virtual.enabled 切换（需JDK 21及以上运行）
+ */
+@Data
+@ConfigurationProperties(prefix = "app.web")
+public class WebConcurrencyProperties {
+
+    private Admission admission = new Admission();
+
+    private Pinning pinning = new Pinning();
+
+    @Data
+    public static class Admission {
+
+        /**
+         * 是否启用准入控制，虚拟线程模式下建议开启
+         */
+        private boolean enabled = false;
+
+        /**
+         * 同时处理的请求数上限，0 表示取数据库连接池的 maxActive
+         */
+        private int maxConcurrent = 0;
+
+        /**
+         * 等待准入的最长时间，超时返回503
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(2);
+
+        /**
+         * 不参与准入控制的路径前缀
+         */
+        private List<String> excludePaths = new ArrayList<>(List.of("/actuator", "/h2-console"));
+    }
+
+    @Data
+    public static class Pinning {
+
+        /**
+         * 虚拟线程模式下是否通过JFR监控载体线程被钉住（pinned）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 钉住时间超过该值才记录
+         */
+        private Duration threshold = Duration.ofMillis(20);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * QueryMonitor 测试类
+ */
+@DisplayName("查询监控测试")
+class QueryMonitorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private QueryMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        HibernateMonitoringProperties properties = new HibernateMonitoringProperties();
+        properties.setSlowQueryThreshold(Duration.ofMillis(100));
+        properties.setRepeatedFetchThreshold(3);
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new QueryMonitor(properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("测试统计查询参数个数时跳过字符串字面量")
+    void testParameterCount() {
+        assertEquals(2, QueryMonitor.parameterCount("SELECT u FROM User u WHERE u.status = :status AND u.id > ?1"));
+        assertEquals(1, QueryMonitor.parameterCount("SELECT * FROM users WHERE note = 'a:b?' AND id = ?"));
+        assertEquals(0, QueryMonitor.parameterCount("SELECT CAST(x AS date)::text FROM t"));
+        assertEquals(0, QueryMonitor.parameterCount(null));
+    }
+
+    @Test
+    @DisplayName("测试只有达到阈值的查询计入慢查询")
+    void testSlowQuery() {
+        // When
+        monitor.queryExecuted("SELECT u FROM User u", 10, 99);
+        monitor.queryExecuted("SELECT u FROM User u WHERE u.id = :id", 1, 100);
+
+        // Then
+        assertEquals(1.0, meterRegistry.get("hibernate.query.slow").counter().count());
+    }
+
+    @Test
+    @DisplayName("测试请求内同一关联单独抓取超过阈值时记为 N+1")
+    void testRepeatedFetches() {
+        // Given
+        try (QueryMonitor.Scope ignored = monitor.openScope("GET /api/users")) {
+            // When - 订单集合抓取4次（超过阈值3），角色集合只抓取3次
+            for (int i = 0; i < 4; i++) {
+                monitor.fetched("User.orders");
+            }
+            for (int i = 0; i < 3; i++) {
+                monitor.fetched("User.roles");
+            }
+        }
+
+        // Then
+        assertEquals(1.0, meterRegistry.get("hibernate.query.n_plus_one")
+                .tag("association", "User.orders").counter().count());
+        assertNull(meterRegistry.find("hibernate.query.n_plus_one").tag("association", "User.roles").counter());
+    }
+
+    @Test
+    @DisplayName("测试作用域外的抓取不计数，嵌套作用域关闭后恢复外层")
+    void testScopes() {
+        // Given - 作用域外
+        for (int i = 0; i < 10; i++) {
+            monitor.fetched("Order");
+        }
+        assertNull(meterRegistry.find("hibernate.query.n_plus_one").counter());
+
+        // When
+        try (QueryMonitor.Scope outer = monitor.openScope("outer")) {
+            try (QueryMonitor.Scope inner = monitor.openScope("inner")) {
+                monitor.fetched("Order");
+            }
+            for (int i = 0; i < 4; i++) {
+                monitor.fetched("Order");
+            }
+        }
+
+        // Then - 只有外层超过阈值
+        assertEquals(1.0, meterRegistry.get("hibernate.query.n_plus_one")
+                .tag("association", "Order").counter().count());
+    }
+
+    @Test
+    @DisplayName("测试实体名和集合角色去掉包名")
+    void testNames() {
+        assertEquals("Order", QueryMonitor.entity("com.example.demo.entity.Order"));
+        assertEquals("User.roles", LazyLoadDetector.association("com.example.demo.entity.User.roles"));
+    }
+}
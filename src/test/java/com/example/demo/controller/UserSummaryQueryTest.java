@@ -0,0 +1,201 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.User;
+import com.example.demo.entity.User.UserStatus;
+import com.example.demo.influxdb.InfluxWritePipeline;
+import com.example.demo.repository.AdvancedUserRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.UserSummary;
+import com.example.demo.service.UserCredentialCache;
+import com.example.demo.service.UserKeyRegistry;
+import com.example.demo.service.UserService;
+import com.example.demo.service.impl.UserServiceImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 用户摘要查询测试
+ * 在H2上执行摘要的构造表达式查询，并经 UserController 输出流式JSON
+ */
+@DisplayName("用户摘要查询测试")
+class UserSummaryQueryTest {
+
+    private AnnotationConfigApplicationContext context;
+
+    private UserRepository userRepository;
+
+    private UserController userController;
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:summary_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean("dataSource", DataSource.class, () -> dataSource);
+        context.register(JpaConfig.class);
+        context.refresh();
+
+        userRepository = context.getBean(UserRepository.class);
+        userRepository.saveAll(List.of(
+                user("alice", "Alice Smith", UserStatus.ACTIVE),
+                user("bob", "Bob Smith", UserStatus.INACTIVE),
+                user("carol", "Carol Jones", UserStatus.ACTIVE),
+                user("dave", null, UserStatus.SUSPENDED)));
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        userController = new UserController(context.getBean(UserService.class), objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    @DisplayName("测试状态和姓名条件为空时不参与过滤")
+    void testStreamSummariesNullableFilters() throws IOException {
+        assertEquals(List.of("alice", "bob", "carol", "dave"), streamedUsernames(null, null));
+        assertEquals(List.of("alice", "carol"), streamedUsernames(UserStatus.ACTIVE, null));
+        assertEquals(List.of("alice", "bob"), streamedUsernames(null, "Smith"));
+        assertEquals(List.of("bob"), streamedUsernames(UserStatus.INACTIVE, "Smith"));
+        assertEquals(List.of(), streamedUsernames(UserStatus.SUSPENDED, "Smith"));
+    }
+
+    @Test
+    @DisplayName("测试摘要JSON不包含密码字段")
+    void testSummaryJsonHasNoPassword() throws IOException {
+        // Given
+        Long id = userRepository.findByUsername("alice").orElseThrow().getId();
+
+        // When
+        JsonNode streamed = stream(null, null);
+        JsonNode single = objectMapper.valueToTree(userController.getUserSummary(id).getBody());
+
+        // Then
+        assertEquals(4, streamed.size());
+        for (JsonNode summary : streamed) {
+            assertFalse(summary.has("password"));
+            assertTrue(summary.has("username"));
+        }
+        assertFalse(single.has("password"));
+        assertEquals("alice@example.com", single.get("email").asText());
+        assertEquals("Alice Smith", single.get("fullName").asText());
+    }
+
+    @Test
+    @DisplayName("测试按ID和按状态分片查询摘要")
+    void testFindSummaries() {
+        // Given
+        Long id = userRepository.findByUsername("carol").orElseThrow().getId();
+        AdvancedUserRepository advancedUserRepository = context.getBean(AdvancedUserRepository.class);
+
+        // When
+        UserSummary summary = userRepository.findSummaryById(id).orElseThrow();
+        Slice<UserSummary> first = advancedUserRepository.findSummariesByStatus(UserStatus.ACTIVE,
+                PageRequest.of(0, 1, Sort.by("id")));
+        Slice<UserSummary> second = advancedUserRepository.findSummariesByStatus(UserStatus.ACTIVE,
+                first.nextPageable());
+
+        // Then
+        assertEquals(new UserSummary(id, "carol", "carol@example.com", "Carol Jones", UserStatus.ACTIVE,
+                summary.createdAt()), summary);
+        assertNotNull(summary.createdAt());
+        assertTrue(userRepository.findSummaryById(-1L).isEmpty());
+        assertEquals("alice", first.getContent().get(0).username());
+        assertTrue(first.hasNext());
+        assertEquals("carol", second.getContent().get(0).username());
+        assertFalse(second.hasNext());
+    }
+
+    private List<String> streamedUsernames(UserStatus status, String name) throws IOException {
+        List<String> usernames = new ArrayList<>();
+        stream(status, name).forEach(summary -> usernames.add(summary.get("username").asText()));
+        return usernames;
+    }
+
+    private JsonNode stream(UserStatus status, String name) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userController.streamUserSummaries(status, name).getBody().writeTo(out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private static User user(String username, String fullName, UserStatus status) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret-" + username);
+        user.setFullName(fullName);
+        user.setStatus(status);
+        return user;
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = {UserRepository.class, AdvancedUserRepository.class}))
+    static class JpaConfig {
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
+            em.setDataSource(dataSource);
+            em.setPackagesToScan("com.example.demo.entity");
+            em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            Properties properties = new Properties();
+            properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            properties.setProperty("hibernate.hbm2ddl.auto", "create");
+            properties.setProperty("hibernate.cache.use_second_level_cache", "false");
+            properties.setProperty("hibernate.physical_naming_strategy",
+                    "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+            em.setJpaProperties(properties);
+            return em;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        UserServiceImpl userService(UserRepository userRepository,
+                                    ObjectProvider<InfluxWritePipeline> influxWritePipeline) {
+            return new UserServiceImpl(userRepository, mock(UserKeyRegistry.class), mock(UserCredentialCache.class),
+                    influxWritePipeline);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.demo.elasticsearch;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.example.demo.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BulkIndexer 测试类
+ * 使用本地HTTP服务模拟Elasticsearch的 _bulk 接口
+ */
+@DisplayName("批量索引器测试")
+class BulkIndexerTest {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\"_id\":\"([^\"]+)\"");
+
+    private HttpServer server;
+
+    private RestClient restClient;
+
+    private ElasticsearchClient client;
+
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+
+    /**
+     * 前N个bulk请求的所有条目返回429
+     */
+    private final AtomicInteger rejectRequests = new AtomicInteger();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/_bulk", this::handleBulk);
+        server.start();
+        restClient = RestClient.builder(new HttpHost("127.0.0.1", server.getAddress().getPort(), "http")).build();
+        client = new ElasticsearchClient(new RestClientTransport(restClient, new JacksonJsonpMapper()));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        restClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("测试按操作数拆分bulk请求")
+    void testBatchesByActionCount() {
+        // Given
+        BulkIndexer indexer = new BulkIndexer(client, objectMapper, properties(100), meterRegistry);
+        indexer.start();
+
+        // When
+        for (long id = 1; id <= 250; id++) {
+            assertTrue(indexer.index(user(id)));
+        }
+        indexer.delete(7L);
+        indexer.close();
+
+        // Then
+        assertEquals(3, requestBodies.size());
+        String all = String.join("", requestBodies);
+        assertTrue(all.contains("\"username\":\"user42\""));
+        assertTrue(all.contains("\"create_time\""));
+        assertFalse(all.contains("password"));
+        assertTrue(all.contains("{\"delete\":{\"_id\":\"7\",\"_index\":\"users\"}}")
+                || all.contains("{\"delete\":{\"_index\":\"users\",\"_id\":\"7\"}}"));
+        assertEquals(251, documents("indexed"));
+        assertEquals(0, documents("failed"));
+    }
+
+    @Test
+    @DisplayName("测试429时退避重试")
+    void testRetriesRejectedItems() {
+        // Given
+        rejectRequests.set(2);
+        BulkIndexer indexer = new BulkIndexer(client, objectMapper, properties(100), meterRegistry);
+        indexer.start();
+
+        // When
+        for (long id = 1; id <= 10; id++) {
+            indexer.index(user(id));
+        }
+        indexer.close();
+
+        // Then
+        assertEquals(3, requestBodies.size());
+        assertEquals(10, documents("indexed"));
+        assertEquals(20, documents("retried"));
+        assertEquals(0, documents("failed"));
+    }
+
+    @Test
+    @DisplayName("测试超过最大重试次数后计为失败")
+    void testGivesUpAfterMaxRetries() {
+        // Given
+        rejectRequests.set(Integer.MAX_VALUE);
+        SearchIndexProperties properties = properties(100);
+        properties.getBulk().setMaxRetries(2);
+        BulkIndexer indexer = new BulkIndexer(client, objectMapper, properties, meterRegistry);
+        indexer.start();
+
+        // When
+        for (long id = 1; id <= 5; id++) {
+            indexer.index(user(id));
+        }
+        indexer.close();
+
+        // Then
+        assertEquals(3, requestBodies.size());
+        assertEquals(0, documents("indexed"));
+        assertEquals(5, documents("failed"));
+    }
+
+    @Test
+    @DisplayName("测试写入其他索引并返回确认结果，计数按目标索引区分")
+    void testSubmitCompletesWithResult() {
+        // Given
+        BulkIndexer indexer = new BulkIndexer(client, objectMapper, properties(100), meterRegistry);
+        indexer.start();
+
+        // When
+        CompletableFuture<BulkIndexer.Result> indexed = indexer.submitIndex("products", 5L, Map.of("sku", "SKU-5"));
+        CompletableFuture<BulkIndexer.Result> deleted = indexer.submitDelete("orders", 9L);
+        indexer.close();
+
+        // Then
+        assertEquals(BulkIndexer.Result.SUCCEEDED, indexed.join());
+        assertEquals(BulkIndexer.Result.SUCCEEDED, deleted.join());
+        String all = String.join("", requestBodies);
+        assertTrue(all.contains("\"_index\":\"products\""));
+        assertTrue(all.contains("\"_index\":\"orders\""));
+        assertTrue(all.contains("\"sku\":\"SKU-5\""));
+        assertEquals(1, documents("products", "indexed"));
+        assertEquals(1, documents("orders", "indexed"));
+        assertEquals(0, documents("users", "indexed"));
+    }
+
+    @Test
+    @DisplayName("测试重试耗尽时确认结果为可重试的失败")
+    void testSubmitCompletesWithFailure() {
+        // Given
+        rejectRequests.set(Integer.MAX_VALUE);
+        SearchIndexProperties properties = properties(100);
+        properties.getBulk().setMaxRetries(1);
+        BulkIndexer indexer = new BulkIndexer(client, objectMapper, properties, meterRegistry);
+        indexer.start();
+
+        // When
+        CompletableFuture<BulkIndexer.Result> result = indexer.submitIndex("products", 5L, Map.of("sku", "SKU-5"));
+        indexer.close();
+
+        // Then
+        assertEquals(BulkIndexer.Result.RETRYABLE, result.join());
+        assertEquals(1, documents("products", "failed"));
+        assertEquals(0, documents("users", "failed"));
+    }
+
+    @Test
+    @DisplayName("测试条目被4xx拒绝时确认结果为永久失败且不重试")
+    void testSubmitCompletesWithRejection() {
+        // Given
+        BulkIndexer indexer = new BulkIndexer(client, objectMapper, properties(100), meterRegistry);
+        indexer.start();
+
+        // When
+        CompletableFuture<BulkIndexer.Result> rejected = indexer.submitIndex("products", "bad-1", Map.of("sku", 1));
+        CompletableFuture<BulkIndexer.Result> indexed = indexer.submitIndex("products", 5L, Map.of("sku", "SKU-5"));
+        indexer.close();
+
+        // Then
+        assertEquals(BulkIndexer.Result.REJECTED, rejected.join());
+        assertEquals(BulkIndexer.Result.SUCCEEDED, indexed.join());
+        assertEquals(1, requestBodies.size());
+        assertEquals(0, documents("retried"));
+    }
+
+    @Test
+    @DisplayName("测试未启动时提交立即失败")
+    void testSubmitBeforeStart() {
+        BulkIndexer indexer = new BulkIndexer(client, objectMapper, properties(100), meterRegistry);
+
+        assertEquals(BulkIndexer.Result.RETRYABLE, indexer.submitDelete("users", 1L).join());
+        assertEquals(1, documents("dropped"));
+    }
+
+    private void handleBulk(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        requestBodies.add(body);
+        boolean reject = rejectRequests.getAndDecrement() > 0;
+
+        StringBuilder items = new StringBuilder();
+        String[] lines = body.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            String actionLine = lines[i];
+            String action = actionLine.startsWith("{\"delete\"") ? "delete" : "index";
+            if (action.equals("index")) {
+                // 跳过文档行
+                i++;
+            }
+            Matcher matcher = ID_PATTERN.matcher(actionLine);
+            String id = matcher.find() ? matcher.group(1) : "";
+            if (items.length() > 0) {
+                items.append(',');
+            }
+            items.append("{\"").append(action).append("\":{\"_index\":\"users\",\"_id\":\"").append(id).append("\",");
+            if (id.startsWith("bad")) {
+                items.append("\"status\":400,\"error\":{\"type\":\"mapper_parsing_exception\",\"reason\":\"failed to parse\"}}}");
+            } else if (reject) {
+                items.append("\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\",\"reason\":\"rejected\"}}}");
+            } else {
+                items.append("\"status\":200,\"result\":\"updated\"}}");
+            }
+        }
+        boolean errors = reject || body.contains("\"_id\":\"bad");
+        byte[] response = ("{\"took\":1,\"errors\":" + errors + ",\"items\":[" + items + "]}")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+        exchange.sendResponseHeaders(200, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+    }
+
+    /**
+     * 所有索引的文档计数之和
+     */
+    private double documents(String result) {
+        return meterRegistry.get("elasticsearch.bulk.documents").tag("result", result).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private double documents(String index, String result) {
+        return meterRegistry.get("elasticsearch.bulk.documents").tag("index", index).tag("result", result)
+                .counter().count();
+    }
+
+    private static SearchIndexProperties properties(int maxActions) {
+        SearchIndexProperties properties = new SearchIndexProperties();
+        properties.getBulk().setMaxActions(maxActions);
+        // 间隔足够长，批次只由操作数和 close() 决定
+        properties.getBulk().setFlushInterval(Duration.ofSeconds(10));
+        properties.getBulk().setInitialBackoff(Duration.ofMillis(1));
+        return properties;
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setEmail("user" + id + "@example.com");
+        user.setPassword("secret");
+        user.setFullName("User " + id);
+        user.setStatus(User.UserStatus.ACTIVE);
+        user.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        return user;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.demo.elasticsearch;
+
+import com.example.demo.entity.SearchOutboxEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * SearchOutboxDispatcher 测试类
+ * 合并逻辑为纯函数测试；发送结果的处理在H2上执行，索引器为mock
+ */
+@DisplayName("发件箱发送器测试")
+class SearchOutboxDispatcherTest {
+
+    private JdbcDataSource dataSource;
+
+    private LocalContainerEntityManagerFactoryBean factoryBean;
+
+    private BulkIndexer indexer;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:outbox_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.example.demo.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.setProperty("hibernate.hbm2ddl.auto", "create");
+        properties.setProperty("hibernate.cache.use_second_level_cache", "false");
+        properties.setProperty("hibernate.physical_naming_strategy",
+                "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+        factoryBean.setJpaProperties(properties);
+        factoryBean.afterPropertiesSet();
+
+        indexer = mock(BulkIndexer.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        factoryBean.destroy();
+    }
+
+    @Test
+    @DisplayName("测试永久失败的行转为死信，不阻塞后续变更")
+    void testRejectedEventsAreDeadLettered() throws InterruptedException {
+        // Given - 每批2行，队头两行都会被永久拒绝
+        insert("User", 1L);
+        insert("Unknown", 2L);
+        insert("User", 3L);
+        when(indexer.submitDelete("users", 1L)).thenReturn(result(BulkIndexer.Result.REJECTED));
+        when(indexer.submitDelete("users", 3L)).thenReturn(result(BulkIndexer.Result.SUCCEEDED));
+        SearchOutboxDispatcher dispatcher = newDispatcher();
+
+        // When
+        int first = dispatcher.dispatchBatch();
+        int second = dispatcher.dispatchBatch();
+        int third = dispatcher.dispatchBatch();
+
+        // Then
+        assertEquals(2, first);
+        assertEquals(1, second);
+        assertEquals(0, third);
+        assertEquals(List.of("User#1:1", "Unknown#2:1"), jdbc().queryForList(
+                "SELECT entity_type || '#' || entity_id || ':' || attempts FROM search_outbox "
+                        + "WHERE dead_lettered_at IS NOT NULL ORDER BY id", String.class));
+        assertEquals(2, jdbc().queryForObject("SELECT COUNT(*) FROM search_outbox", Integer.class));
+        assertEquals(2, meterRegistry.get("search.outbox.events").tag("result", "dead_lettered").counter().count());
+        assertEquals(1, meterRegistry.get("search.outbox.events").tag("result", "dispatched").counter().count());
+    }
+
+    @Test
+    @DisplayName("测试暂时性失败的行保留并累加失败次数，等待重试")
+    void testRetryableEventsStayQueued() throws InterruptedException {
+        // Given
+        insert("User", 1L);
+        when(indexer.submitDelete("users", 1L)).thenReturn(result(BulkIndexer.Result.RETRYABLE));
+        SearchOutboxDispatcher dispatcher = newDispatcher();
+
+        // When
+        int first = dispatcher.dispatchBatch();
+        int second = dispatcher.dispatchBatch();
+
+        // Then
+        assertEquals(-1, first);
+        assertEquals(-1, second);
+        assertEquals(2, jdbc().queryForObject(
+                "SELECT attempts FROM search_outbox WHERE dead_lettered_at IS NULL", Integer.class));
+    }
+
+    @Test
+    @DisplayName("测试同一实体的多次变更合并为一次")
+    void testCoalesceKeepsLastOperation() {
+        // Given
+        List<SearchOutboxEvent> events = List.of(
+                event(1L, "User", 10L, SearchOutboxEvent.Operation.UPSERT),
+                event(2L, "Product", 10L, SearchOutboxEvent.Operation.UPSERT),
+                event(3L, "User", 10L, SearchOutboxEvent.Operation.UPSERT),
+                event(4L, "User", 11L, SearchOutboxEvent.Operation.UPSERT),
+                event(5L, "User", 10L, SearchOutboxEvent.Operation.DELETE));
+
+        // When
+        List<SearchOutboxDispatcher.Change> changes = SearchOutboxDispatcher.coalesce(events);
+
+        // Then - 按首次出现的顺序，User#10 与 Product#10 互不合并
+        assertEquals(3, changes.size());
+        SearchOutboxDispatcher.Change user = changes.get(0);
+        assertEquals("User", user.entityType());
+        assertEquals(10L, user.entityId());
+        assertEquals(SearchOutboxEvent.Operation.DELETE, user.operation());
+        assertEquals(List.of(1L, 3L, 5L), user.outboxIds());
+        assertEquals("Product", changes.get(1).entityType());
+        assertEquals(List.of(2L), changes.get(1).outboxIds());
+        assertEquals(11L, changes.get(2).entityId());
+    }
+
+    private SearchOutboxDispatcher newDispatcher() {
+        SearchIndexProperties properties = new SearchIndexProperties();
+        properties.getOutbox().setBatchSize(2);
+        return new SearchOutboxDispatcher(factoryBean.getObject(), indexer, properties, meterRegistry);
+    }
+
+    private JdbcTemplate jdbc() {
+        return new JdbcTemplate(dataSource);
+    }
+
+    private void insert(String entityType, Long entityId) {
+        jdbc().update("INSERT INTO search_outbox (entity_type, entity_id, operation, created_at, attempts) "
+                + "VALUES (?, ?, 'DELETE', ?, 0)", entityType, entityId, LocalDateTime.now());
+    }
+
+    private static CompletableFuture<BulkIndexer.Result> result(BulkIndexer.Result result) {
+        return CompletableFuture.completedFuture(result);
+    }
+
+    private static SearchOutboxEvent event(Long id, String entityType, Long entityId,
+                                           SearchOutboxEvent.Operation operation) {
+        SearchOutboxEvent event = new SearchOutboxEvent();
+        event.setId(id);
+        event.setEntityType(entityType);
+        event.setEntityId(entityId);
+        event.setOperation(operation);
+        return event;
+    }
+}
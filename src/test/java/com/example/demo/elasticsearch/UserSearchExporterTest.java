@@ -0,0 +1,140 @@
+package com.example.demo.elasticsearch;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserSearchExporter 测试类
+ * 使用本地HTTP服务模拟Elasticsearch的 _pit 和 _search 接口，共5个文档
+ */
+@DisplayName("用户搜索导出测试")
+class UserSearchExporterTest {
+
+    private static final int TOTAL = 5;
+
+    private HttpServer server;
+
+    private RestClient restClient;
+
+    private UserSearchExporter exporter;
+
+    private final List<String> searchBodies = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger closedPits = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/users/_pit", exchange -> respond(exchange, "{\"id\":\"pit-1\"}"));
+        server.createContext("/_pit", exchange -> {
+            closedPits.incrementAndGet();
+            respond(exchange, "{\"succeeded\":true,\"num_freed\":1}");
+        });
+        server.createContext("/_search", this::handleSearch);
+        server.start();
+        restClient = RestClient.builder(new HttpHost("127.0.0.1", server.getAddress().getPort(), "http")).build();
+        ElasticsearchClient client = new ElasticsearchClient(new RestClientTransport(restClient, new JacksonJsonpMapper()));
+        exporter = new UserSearchExporter(client, new ObjectMapper(), new SearchIndexProperties());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        restClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("测试按search_after逐页导出为NDJSON")
+    void testExportAllPages() throws IOException {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long written;
+        try (UserSearchExporter.Export export = exporter.open("ACTIVE", null, 2, true)) {
+            assertEquals(TOTAL, export.totalHits());
+            written = export.writeTo(out);
+        }
+
+        // Then
+        assertEquals(TOTAL, written);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(TOTAL, lines.length);
+        assertEquals("{\"id\":0,\"username\":\"user0\"}", lines[0]);
+        assertEquals("{\"id\":4,\"username\":\"user4\"}", lines[4]);
+
+        assertEquals(3, searchBodies.size());
+        assertTrue(searchBodies.get(0).contains("\"track_total_hits\":true"));
+        assertFalse(searchBodies.get(0).contains("search_after"));
+        assertTrue(searchBodies.get(1).contains("\"track_total_hits\":false"));
+        assertTrue(searchBodies.get(1).contains("\"search_after\":[1700000000001,1]"));
+        assertTrue(searchBodies.get(2).contains("\"search_after\":[1700000000003,3]"));
+        assertTrue(searchBodies.get(0).contains("\"_shard_doc\""));
+        assertTrue(searchBodies.get(0).contains("\"pit\""));
+        assertEquals(1, closedPits.get());
+    }
+
+    @Test
+    @DisplayName("测试不统计总数")
+    void testExportWithoutTotal() throws IOException {
+        try (UserSearchExporter.Export export = exporter.open(null, null, 10, false)) {
+            assertNull(export.totalHits());
+            assertEquals(TOTAL, export.writeTo(new ByteArrayOutputStream()));
+        }
+        assertEquals(1, searchBodies.size());
+        assertEquals(1, closedPits.get());
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        searchBodies.add(body);
+        int size = Integer.parseInt(body.replaceAll(".*\"size\":(\\d+).*", "$1"));
+        int from = 0;
+        if (body.contains("\"search_after\":[")) {
+            String after = body.replaceAll(".*\"search_after\":\\[\\d+,(\\d+)].*", "$1");
+            from = Integer.parseInt(after) + 1;
+        }
+        StringBuilder hits = new StringBuilder();
+        for (int i = from; i < Math.min(from + size, TOTAL); i++) {
+            if (hits.length() > 0) {
+                hits.append(',');
+            }
+            hits.append("{\"_index\":\"users\",\"_id\":\"").append(i).append("\",\"_score\":null,")
+                .append("\"_source\":{\"id\":").append(i).append(",\"username\":\"user").append(i).append("\"},")
+                .append("\"sort\":[").append(1_700_000_000_000L + i).append(',').append(i).append("]}");
+        }
+        respond(exchange, "{\"took\":1,\"timed_out\":false,\"pit_id\":\"pit-1\","
+                + "\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+                + "\"hits\":{\"total\":{\"value\":" + TOTAL + ",\"relation\":\"eq\"},\"max_score\":null,"
+                + "\"hits\":[" + hits + "]}}");
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] response = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+        exchange.sendResponseHeaders(200, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+    }
+}
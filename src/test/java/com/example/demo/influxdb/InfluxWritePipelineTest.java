@@ -0,0 +1,184 @@
+package com.example.demo.influxdb;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBFactory;
+import org.influxdb.dto.Point;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * InfluxWritePipeline 测试类
+ * 使用本地HTTP服务模拟InfluxDB的 /write 接口
+ */
+@DisplayName("InfluxDB写入管道测试")
+class InfluxWritePipelineTest {
+
+    private HttpServer server;
+
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/write", exchange -> {
+            InputStream body = exchange.getRequestBody();
+            if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+                body = new GZIPInputStream(body);
+            }
+            requestBodies.add(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("测试按条数攒批并gzip写入")
+    void testBatchedGzipWrite() {
+        // Given
+        InfluxWriteProperties properties = properties();
+        properties.setBatchSize(100);
+        properties.setFlushInterval(Duration.ofMillis(50));
+        InfluxWritePipeline pipeline = new InfluxWritePipeline(properties, client(true), meterRegistry);
+        pipeline.start();
+
+        // When
+        for (int i = 0; i < 250; i++) {
+            pipeline.write(point(i));
+        }
+        pipeline.close();
+
+        // Then
+        long lines = requestBodies.stream().mapToLong(body -> body.split("\n").length).sum();
+        assertEquals(250, lines);
+        assertTrue(requestBodies.size() >= 3);
+        assertTrue(requestBodies.get(0).startsWith("http_requests,uri=/api/test "));
+        assertEquals(250, meterRegistry.get("influxdb.write.points").tag("result", "written").counter().count());
+        assertEquals(0, meterRegistry.get("influxdb.write.points").tag("result", "dropped").counter().count());
+    }
+
+    @Test
+    @DisplayName("测试按UTF-8字节数而非字符数攒批")
+    void testBatchBytesCountsUtf8() {
+        // Given - 每行含40个三字节的中文字符，两行恰好达到字节上限
+        String line = Point.measurement("http_requests")
+                .time(1_700_000_000_000L, TimeUnit.MILLISECONDS)
+                .tag("uri", "/api/" + "用户".repeat(20))
+                .addField("seq", 0)
+                .build()
+                .lineProtocol(TimeUnit.MILLISECONDS);
+        int lineBytes = line.getBytes(StandardCharsets.UTF_8).length;
+        InfluxWriteProperties properties = properties();
+        properties.setFlushInterval(Duration.ofMillis(500));
+        properties.setBatchBytes(2 * lineBytes + 1);
+        InfluxWritePipeline pipeline = new InfluxWritePipeline(properties, client(false), meterRegistry);
+        for (int i = 0; i < 6; i++) {
+            assertTrue(pipeline.enqueue(line));
+        }
+
+        // When
+        pipeline.start();
+        pipeline.close();
+
+        // Then
+        assertEquals(lineBytes, InfluxWritePipeline.utf8Length(line));
+        assertEquals(3, requestBodies.size());
+        for (String body : requestBodies) {
+            assertEquals(2, body.split("\n").length);
+        }
+    }
+
+    @Test
+    @DisplayName("测试缓冲区满时丢弃新数据点")
+    void testDropNewestWhenFull() {
+        // Given
+        InfluxWriteProperties properties = properties();
+        properties.setBufferCapacity(10);
+        InfluxWritePipeline pipeline = new InfluxWritePipeline(properties, client(false), meterRegistry);
+
+        // When（未启动刷写线程，缓冲区只进不出）
+        int accepted = 0;
+        for (int i = 0; i < 15; i++) {
+            if (pipeline.write(point(i))) {
+                accepted++;
+            }
+        }
+
+        // Then
+        assertEquals(10, accepted);
+        assertEquals(10, pipeline.queueDepth());
+        assertEquals(10, meterRegistry.get("influxdb.write.queue.depth").gauge().value());
+        assertEquals(5, meterRegistry.get("influxdb.write.points").tag("result", "dropped").counter().count());
+    }
+
+    @Test
+    @DisplayName("测试缓冲区满时丢弃最早数据点")
+    void testDropOldestWhenFull() {
+        // Given
+        InfluxWriteProperties properties = properties();
+        properties.setBufferCapacity(10);
+        properties.setOverflowPolicy(InfluxWriteProperties.OverflowPolicy.DROP_OLDEST);
+        InfluxWritePipeline pipeline = new InfluxWritePipeline(properties, client(false), meterRegistry);
+
+        // When
+        for (int i = 0; i < 15; i++) {
+            assertTrue(pipeline.write(point(i)));
+        }
+        pipeline.start();
+        pipeline.close();
+
+        // Then - 保留的是最后写入的10个点
+        String written = String.join("\n", requestBodies);
+        assertFalse(written.contains("seq=4i"));
+        assertTrue(written.contains("seq=5i"));
+        assertTrue(written.contains("seq=14i"));
+        assertEquals(5, meterRegistry.get("influxdb.write.points").tag("result", "dropped").counter().count());
+    }
+
+    private InfluxWriteProperties properties() {
+        InfluxWriteProperties properties = new InfluxWriteProperties();
+        properties.setUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        properties.setDatabase("test_db");
+        properties.setFlushInterval(Duration.ofMillis(20));
+        return properties;
+    }
+
+    private InfluxDB client(boolean gzip) {
+        InfluxDB influxDB = InfluxDBFactory.connect("http://127.0.0.1:" + server.getAddress().getPort());
+        if (gzip) {
+            influxDB.enableGzip();
+        }
+        return influxDB;
+    }
+
+    private static Point point(int seq) {
+        return Point.measurement("http_requests")
+                .time(1_700_000_000_000L + seq, TimeUnit.MILLISECONDS)
+                .tag("uri", "/api/test")
+                .addField("seq", seq)
+                .build();
+    }
+}
@@ -7,8 +7,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -64,6 +67,27 @@ class UserMockServiceTest {
         assertEquals(count, uniqueUsernames);
     }
     
+    @Test
+    @DisplayName("测试指定种子并行生成可复现数据")
+    void testGenerateMockUsersWithSeed() {
+        // Given
+        int count = 10_000;
+        
+        // When
+        List<User> first = userMockService.generateMockUsers(count, 42L);
+        List<User> second = userMockService.generateMockUsers(count, 42L);
+        
+        // Then
+        assertEquals(count, first.size());
+        assertEquals(count, first.stream().mapToLong(User::getId).distinct().count());
+        for (int i = 0; i < count; i++) {
+            assertEquals(first.get(i).getFullName(), second.get(i).getFullName());
+            assertEquals(first.get(i).getPhone(), second.get(i).getPhone());
+            assertEquals(first.get(i).getStatus(), second.get(i).getStatus());
+        }
+        assertTrue(first.stream().allMatch(u -> u.getPhone().matches("1\\d{10}")));
+    }
+    
     @Test
     @DisplayName("测试创建和获取Mock用户")
     void testCreateAndGetMockUser() {
@@ -216,6 +240,153 @@ class UserMockServiceTest {
         assertEquals(1, stats.getSuspendedUsers());
     }
     
+    @Test
+    @DisplayName("测试更新后索引与统计保持一致")
+    void testIndexesFollowUpdateAndDelete() {
+        for (UserMockService service : List.of(new UserMockServiceImpl(), new UserMockServiceImpl("compact", 16))) {
+            // Given
+            service.clearAllMockData();
+            User user = service.createMockUser(createTestUser("before", UserStatus.ACTIVE));
+            
+            // When
+            user.setUsername("after");
+            user.setEmail("after@example.com");
+            user.setStatus(UserStatus.SUSPENDED);
+            service.updateMockUser(user);
+            
+            // Then
+            assertFalse(service.mockUsernameExists("before"));
+            assertFalse(service.mockEmailExists("before@example.com"));
+            assertTrue(service.getMockUserByUsername("after").isPresent());
+            assertTrue(service.mockEmailExists("after@example.com"));
+            assertEquals(0, service.getMockDataStats().getActiveUsers());
+            assertEquals(1, service.getMockUsersByStatus(UserStatus.SUSPENDED).size());
+            
+            // When
+            service.deleteMockUser(user.getId());
+            
+            // Then
+            assertFalse(service.mockUsernameExists("after"));
+            assertTrue(service.getMockUsersByStatus(UserStatus.SUSPENDED).isEmpty());
+            assertEquals(0, service.getMockDataStats().getTotalUsers());
+        }
+    }
+    
+    @Test
+    @DisplayName("测试用户名和邮箱重复时删除或改名较新的用户后仍能找到较早的用户")
+    void testDuplicateKeysFallBackToRemainingUsers() {
+        for (UserMockService service : List.of(new UserMockServiceImpl(), new UserMockServiceImpl("compact", 16))) {
+            // Given - 三个用户使用相同的用户名和邮箱
+            service.clearAllMockData();
+            User first = service.createMockUser(createTestUser("dup", UserStatus.ACTIVE));
+            User second = service.createMockUser(createTestUser("dup", UserStatus.ACTIVE));
+            User third = service.createMockUser(createTestUser("dup", UserStatus.ACTIVE));
+            assertEquals(third.getId(), service.getMockUserByUsername("dup").get().getId());
+            
+            // When - 删除最近写入者
+            service.deleteMockUser(third.getId());
+            
+            // Then
+            assertEquals(second.getId(), service.getMockUserByUsername("dup").get().getId());
+            
+            // When - 较新的用户改名
+            second.setUsername("renamed");
+            service.updateMockUser(second);
+            
+            // Then
+            assertEquals(first.getId(), service.getMockUserByUsername("dup").get().getId());
+            assertEquals(second.getId(), service.getMockUserByUsername("renamed").get().getId());
+            assertTrue(service.mockEmailExists("dup@example.com"));
+            
+            // When
+            service.deleteMockUser(first.getId());
+            
+            // Then
+            assertFalse(service.mockUsernameExists("dup"));
+            assertTrue(service.mockEmailExists("dup@example.com"));
+            service.deleteMockUser(second.getId());
+            assertFalse(service.mockEmailExists("dup@example.com"));
+        }
+    }
+    
+    @Test
+    @DisplayName("测试紧凑存储的用户名、邮箱索引在扩容和删除后仍可查找")
+    void testCompactIndexesAfterGrowthAndDelete() {
+        // Given - 初始容量16，写入1000个用户触发多次扩容
+        UserMockService compactService = new UserMockServiceImpl("compact", 16);
+        compactService.clearAllMockData();
+        List<User> users = compactService.generateMockUsers(1000);
+        compactService.createMockUsers(users);
+        
+        // When - 删除每隔一个用户，使探测链中出现回移
+        for (int i = 0; i < users.size(); i += 2) {
+            compactService.deleteMockUser(users.get(i).getId());
+        }
+        
+        // Then
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            boolean kept = i % 2 == 1;
+            assertEquals(kept, compactService.mockUsernameExists(user.getUsername()));
+            assertEquals(kept, compactService.mockEmailExists(user.getEmail()));
+            if (kept) {
+                assertEquals(user.getId(), compactService.getMockUserByUsername(user.getUsername()).get().getId());
+            }
+        }
+        UserMockService.MockDataStats stats = compactService.getMockDataStats();
+        assertEquals(500, stats.getTotalUsers());
+        assertEquals(500, stats.getActiveUsers() + stats.getInactiveUsers() + stats.getSuspendedUsers());
+        assertEquals(stats.getActiveUsers(), compactService.getMockUsersByStatus(UserStatus.ACTIVE).size());
+    }
+    
+    @Test
+    @DisplayName("测试紧凑存储模式")
+    void testCompactStorage() {
+        // Given
+        UserMockService compactService = new UserMockServiceImpl("compact", 16);
+        compactService.clearAllMockData();
+        List<User> users = compactService.generateMockUsers(100);
+        users.forEach(compactService::createMockUser);
+        User nullable = createTestUser("nullable", UserStatus.SUSPENDED);
+        nullable.setFullName(null);
+        User created = compactService.createMockUser(nullable);
+        
+        // When
+        Optional<User> loaded = compactService.getMockUserById(created.getId());
+        boolean deleted = compactService.deleteMockUser(users.get(0).getId());
+        
+        // Then
+        assertTrue(loaded.isPresent());
+        assertEquals("nullable", loaded.get().getUsername());
+        assertNull(loaded.get().getFullName());
+        assertEquals(UserStatus.SUSPENDED, loaded.get().getStatus());
+        assertEquals(created.getCreatedAt(), loaded.get().getCreatedAt());
+        assertTrue(deleted);
+        assertFalse(compactService.getMockUserById(users.get(0).getId()).isPresent());
+        assertEquals(100, compactService.getAllMockUsers().size());
+        User sample = users.get(50);
+        assertEquals(sample.getEmail(), compactService.getMockUserByUsername(sample.getUsername()).get().getEmail());
+    }
+    
+    @Test
+    @DisplayName("测试逐个遍历Mock用户")
+    void testForEachMockUser() {
+        for (UserMockService service : List.of(new UserMockServiceImpl(), new UserMockServiceImpl("compact", 16))) {
+            // Given - 超过紧凑存储单次组装的数量，跨越多个分块
+            service.clearAllMockData();
+            service.createMockUsers(service.generateMockUsers(600));
+            service.deleteMockUser(service.getAllMockUsers().get(0).getId());
+            
+            // When
+            Set<Long> visited = new HashSet<>();
+            service.forEachMockUser(user -> visited.add(user.getId()));
+            
+            // Then
+            assertEquals(599, visited.size());
+            assertEquals(service.getAllMockUsers().stream().map(User::getId).collect(Collectors.toSet()), visited);
+        }
+    }
+    
     @Test
     @DisplayName("测试清空Mock数据")
     void testClearAllMockData() {
@@ -0,0 +1,166 @@
+package com.example.demo.other;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.example.demo.entity.User;
+import com.example.demo.influxdb.InfluxWritePipeline;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.UserCredentialCache;
+import com.example.demo.service.UserKeyRegistry;
+import com.example.demo.service.UserService;
+import com.example.demo.service.impl.UserServiceImpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 读写分离下的JPA查询测试
+ * 与应用配置相同：@Transactional 使用 @Primary 的 DataSourceTransactionManager，JPA 使用名为 transactionManager 的管理器。
+ * 主库写入用户后把表和数据复制到副本，再只修改副本上的姓名，读到哪个姓名就说明查询走了哪个库
+ */
+@DisplayName("读写分离JPA查询测试")
+class ReplicaJpaRoutingTest {
+
+    private DruidDataSource primary;
+
+    private DruidDataSource replica;
+
+    private ReadWriteDataSource dataSource;
+
+    private AnnotationConfigApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        primary = node("primary");
+        replica = node("replica");
+        ReplicaProperties properties = new ReplicaProperties();
+        properties.setHealthCheckInterval(Duration.ofHours(1));
+        dataSource = new ReadWriteDataSource(primary, new ReplicaRoutingDataSource(primary, List.of(replica), properties));
+
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean("dataSource", DataSource.class, () -> dataSource);
+        context.register(JpaConfig.class);
+        context.refresh();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        context.close();
+        dataSource.close();
+    }
+
+    @Test
+    @DisplayName("测试只读事务中的仓库查询从副本读取，读写事务使用主库")
+    void testRepositoryReadsUseReplica() {
+        // Given
+        User user = new User();
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPassword("secret");
+        user.setFullName("On Primary");
+        Long id = context.getBean(UserRepository.class).save(user).getId();
+        copySchemaAndData(primary, replica);
+        new JdbcTemplate(replica).update("UPDATE users SET full_name = 'On Replica' WHERE id = ?", id);
+        UserService userService = context.getBean(UserService.class);
+
+        // When & Then - 只读事务
+        assertEquals("On Replica", userService.findById(id).orElseThrow().getFullName());
+        assertEquals(List.of("On Replica"),
+                userService.searchUsersByName("Replica").stream().map(User::getFullName).toList());
+        assertEquals(1, userService.getAllUsers().size());
+
+        // When & Then - 读写事务
+        userService.updateUserStatus(id, User.UserStatus.INACTIVE);
+        assertEquals("INACTIVE", new JdbcTemplate(primary)
+                .queryForObject("SELECT status FROM users WHERE id = ?", String.class, id));
+        assertEquals("ACTIVE", new JdbcTemplate(replica)
+                .queryForObject("SELECT status FROM users WHERE id = ?", String.class, id));
+    }
+
+    /**
+     * 用 H2 的 SCRIPT 导出主库的表、序列和数据，在副本上重放
+     */
+    private static void copySchemaAndData(DataSource from, DataSource to) {
+        JdbcTemplate target = new JdbcTemplate(to);
+        for (String statement : new JdbcTemplate(from).queryForList("SCRIPT", String.class)) {
+            if (!statement.startsWith("--") && !statement.startsWith("CREATE USER")) {
+                target.execute(statement);
+            }
+        }
+    }
+
+    private static DruidDataSource node(String name) {
+        DruidDataSource dataSource = new DruidDataSource();
+        dataSource.setName(name);
+        dataSource.setUrl("jdbc:h2:mem:" + name + "_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setMaxWait(1000);
+        return dataSource;
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = UserRepository.class))
+    static class JpaConfig {
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
+            em.setDataSource(dataSource);
+            em.setPackagesToScan("com.example.demo.entity");
+            em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            Properties properties = new Properties();
+            properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            properties.setProperty("hibernate.hbm2ddl.auto", "create");
+            properties.setProperty("hibernate.cache.use_second_level_cache", "false");
+            properties.setProperty("hibernate.physical_naming_strategy",
+                    "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+            em.setJpaProperties(properties);
+            return em;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        @Primary
+        DataSourceTransactionManager dataSourceTransactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        UserServiceImpl userService(UserRepository userRepository,
+                                    ObjectProvider<InfluxWritePipeline> influxWritePipeline) {
+            return new UserServiceImpl(userRepository, mock(UserKeyRegistry.class), mock(UserCredentialCache.class),
+                    influxWritePipeline);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.demo.other;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 读写分离数据源测试类
+ * 主库和副本是不同的H2内存库，各有一张 node 表记录自己的名字
+ */
+@DisplayName("读写分离数据源测试")
+class ReplicaRoutingDataSourceTest {
+
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable closeable : closeables) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    @DisplayName("测试只读事务使用副本，读写事务使用主库")
+    void testReadOnlyTransactionsUseReplica() {
+        // Given
+        ReadWriteDataSource dataSource = readWrite(properties(), node("primary"), node("replica"));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate readOnly = transaction(dataSource, true);
+        TransactionTemplate readWrite = transaction(dataSource, false);
+
+        // When & Then
+        assertEquals("replica", readOnly.execute(status -> name(jdbcTemplate)));
+        assertEquals("primary", readWrite.execute(status -> name(jdbcTemplate)));
+        assertEquals("primary", name(jdbcTemplate));
+    }
+
+    @Test
+    @DisplayName("测试多个副本轮询")
+    void testRoundRobin() {
+        // Given
+        ReadWriteDataSource dataSource = readWrite(properties(), node("primary"), node("replica-a"), node("replica-b"));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate readOnly = transaction(dataSource, true);
+
+        // When
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            names.add(readOnly.execute(status -> name(jdbcTemplate)));
+        }
+
+        // Then
+        assertEquals(List.of("replica-a", "replica-b", "replica-a", "replica-b"), names);
+    }
+
+    @Test
+    @DisplayName("测试副本不可用时回退主库，恢复后重新使用")
+    void testFallbackToPrimary() throws Exception {
+        // Given
+        DruidDataSource replica = node("replica");
+        ReadWriteDataSource dataSource = readWrite(properties(), node("primary"), replica);
+        ReplicaRoutingDataSource replicas = dataSource.getReplicas();
+        replicas.bindTo(meterRegistry);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate readOnly = transaction(dataSource, true);
+
+        // When - 延迟查询报告副本落后太多
+        new JdbcTemplate(replica).execute("UPDATE node SET lag_seconds = 60");
+        replicas.checkReplicas();
+
+        // Then
+        assertFalse(replicas.replicas().get(0).healthy());
+        assertEquals("primary", readOnly.execute(status -> name(jdbcTemplate)));
+        assertEquals(1, meterRegistry.get("db.replicas.fallback").counter().count());
+        assertEquals(0, meterRegistry.get("db.replicas.healthy").gauge().value());
+
+        // When - 副本追上
+        new JdbcTemplate(replica).execute("UPDATE node SET lag_seconds = 0");
+        replicas.checkReplicas();
+
+        // Then
+        assertTrue(replicas.replicas().get(0).healthy());
+        assertEquals("replica", readOnly.execute(status -> name(jdbcTemplate)));
+    }
+
+    @Test
+    @DisplayName("测试副本连接池已满时跳过但不移出路由")
+    void testSaturatedReplicaStaysHealthy() throws Exception {
+        // Given - 副本只有一个连接且已被借出
+        DruidDataSource replica = node("replica");
+        replica.setMaxActive(1);
+        replica.setMaxWait(100);
+        ReadWriteDataSource dataSource = readWrite(properties(), node("primary"), replica);
+        ReplicaRoutingDataSource replicas = dataSource.getReplicas();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate readOnly = transaction(dataSource, true);
+
+        try (Connection borrowed = replica.getConnection()) {
+            // When
+            String served = readOnly.execute(status -> name(jdbcTemplate));
+            replicas.checkReplicas();
+
+            // Then - 本次回退主库，副本仍然健康
+            assertEquals("primary", served);
+            assertTrue(replicas.replicas().get(0).healthy());
+        }
+
+        // Then - 连接归还后重新使用副本
+        assertEquals("replica", readOnly.execute(status -> name(jdbcTemplate)));
+    }
+
+    private ReadWriteDataSource readWrite(ReplicaProperties properties, DruidDataSource primary,
+                                          DruidDataSource... replicas) {
+        ReadWriteDataSource dataSource = new ReadWriteDataSource(primary,
+                new ReplicaRoutingDataSource(primary, List.of(replicas), properties));
+        closeables.add(dataSource);
+        return dataSource;
+    }
+
+    private static ReplicaProperties properties() {
+        ReplicaProperties properties = new ReplicaProperties();
+        properties.setHealthCheckInterval(Duration.ofHours(1));
+        properties.setLagQuery("SELECT lag_seconds FROM node");
+        properties.setMaxLag(Duration.ofSeconds(10));
+        return properties;
+    }
+
+    private static DruidDataSource node(String name) {
+        DruidDataSource dataSource = new DruidDataSource();
+        dataSource.setName(name);
+        dataSource.setUrl("jdbc:h2:mem:" + name + "_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setMaxWait(1000);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(20), lag_seconds INT)");
+        jdbcTemplate.update("INSERT INTO node VALUES (?, 0)", name);
+        return dataSource;
+    }
+
+    private static TransactionTemplate transaction(ReadWriteDataSource dataSource, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        template.setReadOnly(readOnly);
+        return template;
+    }
+
+    private static String name(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+}
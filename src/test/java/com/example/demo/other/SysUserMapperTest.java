@@ -0,0 +1,63 @@
+package com.example.demo.other;
+
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SysUserMapper 多行插入测试类
+ * 使用独立的H2内存库和 mapper/SysUser.xml
+ */
+@DisplayName("SysUser批量插入测试")
+class SysUserMapperTest {
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:sys_user_" + System.nanoTime() + ";MODE=MYSQL;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+        SqlSessionFactoryBean bean = new SqlSessionFactoryBean();
+        bean.setDataSource(dataSource);
+        bean.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath*:mapper/**/*.xml"));
+        sqlSessionFactory = bean.getObject();
+    }
+
+    @Test
+    @DisplayName("测试多行插入回填自增主键")
+    void testInsertBatchReturnsGeneratedKeys() {
+        // Given
+        List<SysUser> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            SysUser user = new SysUser();
+            user.setName("batch" + i);
+            users.add(user);
+        }
+
+        // When
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            int inserted = session.getMapper(SysUserMapper.class).insertBatch(users);
+
+            // Then
+            assertEquals(3, inserted);
+            assertNotNull(users.get(0).getId());
+            assertEquals(users.get(0).getId() + 1, users.get(1).getId());
+            assertEquals(users.get(0).getId() + 2, users.get(2).getId());
+        }
+    }
+}
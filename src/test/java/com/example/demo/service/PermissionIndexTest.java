@@ -0,0 +1,116 @@
+package com.example.demo.service;
+
+import com.example.demo.service.PermissionIndex.Link;
+import com.example.demo.service.PermissionIndex.PermissionRow;
+import com.example.demo.service.PermissionIndex.RoleRow;
+import com.example.demo.service.PermissionIndex.Snapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PermissionIndex 测试类
+ */
+@DisplayName("权限索引测试")
+class PermissionIndexTest {
+
+    private PermissionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Given - 角色10: user.read/user.write；角色20: order.read；用户1拥有两个角色，用户2只有角色20
+        index = new PermissionIndex(null);
+        index.replace(new Snapshot(
+                List.of(new PermissionRow(100L, "user.read", true),
+                        new PermissionRow(101L, "user.write", true),
+                        new PermissionRow(102L, "order.read", true)),
+                List.of(new RoleRow(10L, true), new RoleRow(20L, true)),
+                List.of(new Link(10L, 100L), new Link(10L, 101L), new Link(20L, 102L)),
+                List.of(new Link(1L, 10L), new Link(1L, 20L), new Link(2L, 20L))));
+    }
+
+    @Test
+    @DisplayName("测试用户权限为所有角色权限的并集")
+    void testEffectivePermissions() {
+        assertTrue(index.hasPermission(1L, "user.read"));
+        assertTrue(index.hasPermission(1L, "order.read"));
+        assertTrue(index.hasPermission(2L, "order.read"));
+        assertFalse(index.hasPermission(2L, "user.write"));
+        assertFalse(index.hasPermission(3L, "order.read"));
+        assertFalse(index.hasPermission(1L, "unknown"));
+    }
+
+    @Test
+    @DisplayName("测试角色移除权限后拥有该角色的用户同步更新")
+    void testRolePermissionRemoved() {
+        // When - Role.removePermission(user.write) 提交后重新读取角色10
+        index.apply(Set.of(), Set.of(10L), Set.of(), new Snapshot(
+                List.of(new PermissionRow(100L, "user.read", true)),
+                List.of(new RoleRow(10L, true)),
+                List.of(new Link(10L, 100L)),
+                List.of()));
+
+        // Then
+        assertTrue(index.hasPermission(1L, "user.read"));
+        assertFalse(index.hasPermission(1L, "user.write"));
+    }
+
+    @Test
+    @DisplayName("测试用户新增角色、角色停用和权限禁用")
+    void testIncrementalChanges() {
+        // When - User.addRole(角色10)
+        index.apply(Set.of(2L), Set.of(), Set.of(), new Snapshot(
+                List.of(), List.of(), List.of(), List.of(new Link(2L, 10L), new Link(2L, 20L))));
+
+        // Then
+        assertTrue(index.hasPermission(2L, "user.write"));
+
+        // When - 角色20停用
+        index.apply(Set.of(), Set.of(20L), Set.of(), new Snapshot(
+                List.of(new PermissionRow(102L, "order.read", true)),
+                List.of(new RoleRow(20L, false)),
+                List.of(new Link(20L, 102L)),
+                List.of()));
+
+        // Then
+        assertFalse(index.hasPermission(1L, "order.read"));
+        assertFalse(index.hasPermission(2L, "order.read"));
+
+        // When - 权限 user.read 禁用
+        index.apply(Set.of(), Set.of(), Set.of(100L), new Snapshot(
+                List.of(new PermissionRow(100L, "user.read", false)), List.of(), List.of(), List.of()));
+
+        // Then
+        assertFalse(index.hasPermission(1L, "user.read"));
+        assertTrue(index.hasPermission(1L, "user.write"));
+    }
+
+    @Test
+    @DisplayName("测试权限超过64个时跨字存储")
+    void testManyPermissions() {
+        // Given
+        List<PermissionRow> permissions = new ArrayList<>();
+        List<Link> rolePermissions = new ArrayList<>();
+        for (long id = 0; id < 130; id++) {
+            permissions.add(new PermissionRow(id, "perm." + id, true));
+            if (id % 2 == 0) {
+                rolePermissions.add(new Link(1L, id));
+            }
+        }
+
+        // When
+        index.replace(new Snapshot(permissions, List.of(new RoleRow(1L, true)), rolePermissions,
+                List.of(new Link(7L, 1L))));
+
+        // Then
+        assertTrue(index.hasPermission(7L, "perm.128"));
+        assertFalse(index.hasPermission(7L, "perm.129"));
+        assertTrue(index.hasPermission(7L, "perm.64"));
+    }
+}
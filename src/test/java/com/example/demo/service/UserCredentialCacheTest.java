@@ -0,0 +1,85 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.User.UserStatus;
+import com.example.demo.repository.UserCredentials;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserCredentialCache 测试类
+ */
+@DisplayName("登录凭据缓存测试")
+class UserCredentialCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Map<String, UserCredentials> table = new HashMap<>();
+
+    private final AtomicInteger queries = new AtomicInteger();
+
+    private final Function<String, Optional<UserCredentials>> loader = username -> {
+        queries.incrementAndGet();
+        return Optional.ofNullable(table.get(username));
+    };
+
+    @Test
+    @DisplayName("测试校验通过后缓存命中不再查库")
+    void testVerifiedCredentialsAreCached() {
+        // Given
+        UserCredentialCache cache = new UserCredentialCache(new UserCredentialProperties(), meterRegistry);
+        table.put("alice", new UserCredentials(1L, "secret", UserStatus.ACTIVE));
+
+        // When
+        boolean first = cache.verify("alice", "secret", loader);
+        boolean second = cache.verify("alice", "secret", loader);
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        assertEquals(1, queries.get());
+        assertEquals(1, meterRegistry.get("user.login.checks").tag("result", "cached").counter().count());
+    }
+
+    @Test
+    @DisplayName("测试错误密码、未知用户和非活跃用户被拒绝")
+    void testRejectsInvalidCredentials() {
+        // Given
+        UserCredentialCache cache = new UserCredentialCache(new UserCredentialProperties(), meterRegistry);
+        table.put("alice", new UserCredentials(1L, "secret", UserStatus.ACTIVE));
+        table.put("bob", new UserCredentials(2L, "secret", UserStatus.SUSPENDED));
+
+        // When & Then
+        assertFalse(cache.verify("alice", "wrong", loader));
+        assertFalse(cache.verify("carol", "secret", loader));
+        assertFalse(cache.verify("bob", "secret", loader));
+        assertFalse(cache.verify("alice", null, loader));
+        assertEquals(4, meterRegistry.get("user.login.checks").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    @DisplayName("测试失效后使用新密码重新查库")
+    void testInvalidateAfterPasswordChange() {
+        // Given
+        UserCredentialCache cache = new UserCredentialCache(new UserCredentialProperties(), meterRegistry);
+        table.put("alice", new UserCredentials(1L, "secret", UserStatus.ACTIVE));
+        assertTrue(cache.verify("alice", "secret", loader));
+
+        // When - 没有事务时立即失效
+        table.put("alice", new UserCredentials(1L, "changed", UserStatus.ACTIVE));
+        cache.invalidate("alice");
+
+        // Then
+        assertFalse(cache.verify("alice", "secret", loader));
+        assertTrue(cache.verify("alice", "changed", loader));
+        assertEquals(3, queries.get());
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.User;
+import com.example.demo.entity.User.UserStatus;
+import com.example.demo.influxdb.InfluxWritePipeline;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.impl.UserServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 登录凭据缓存失效测试
+ * 与应用配置相同地注册 @Primary 的 DataSourceTransactionManager 和名为 transactionManager 的JPA管理器，
+ * 经 UserCredentialConfig 注册的提交后监听器在实体修改提交后移除缓存凭据
+ */
+@DisplayName("登录凭据缓存失效测试")
+class UserCredentialInvalidationTest {
+
+    private AnnotationConfigApplicationContext context;
+
+    private UserService userService;
+
+    private UserRepository userRepository;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:credentials_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean("dataSource", DataSource.class, () -> dataSource);
+        context.register(JpaConfig.class);
+        context.refresh();
+
+        userService = context.getBean(UserService.class);
+        userRepository = context.getBean(UserRepository.class);
+        meterRegistry = context.getBean(MeterRegistry.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    @DisplayName("测试停用用户提交后缓存的凭据不再通过")
+    void testStatusChangeInvalidatesCachedCredentials() {
+        // Given - 第二次登录命中缓存
+        Long id = userRepository.save(user("alice")).getId();
+        assertTrue(userService.validatePassword("alice", "secret"));
+        assertTrue(userService.validatePassword("alice", "secret"));
+        assertEquals(1, checks("cached"));
+
+        // When
+        userService.updateUserStatus(id, UserStatus.SUSPENDED);
+
+        // Then - 缓存已移除，重新查库后被拒绝
+        assertFalse(userService.validatePassword("alice", "secret"));
+        assertEquals(1, checks("cached"));
+        assertEquals(2, checks("database"));
+    }
+
+    @Test
+    @DisplayName("测试修改密码提交后旧密码被拒绝，回滚的修改不影响缓存")
+    void testPasswordChangeInvalidatesCachedCredentials() {
+        // Given
+        Long id = userRepository.save(user("bob")).getId();
+        assertTrue(userService.validatePassword("bob", "secret"));
+        TransactionTemplate jpa = new TransactionTemplate(
+                context.getBean("transactionManager", PlatformTransactionManager.class));
+        EntityManager entityManager = context.getBean(EntityManagerHolder.class).entityManager;
+
+        // When - 回滚的修改
+        jpa.executeWithoutResult(status -> {
+            entityManager.find(User.class, id).setPassword("changed");
+            entityManager.flush();
+            status.setRollbackOnly();
+        });
+
+        // Then - 缓存仍然命中
+        assertTrue(userService.validatePassword("bob", "secret"));
+        assertEquals(1, checks("cached"));
+
+        // When - 提交的修改
+        jpa.executeWithoutResult(status -> entityManager.find(User.class, id).setPassword("changed"));
+
+        // Then
+        assertFalse(userService.validatePassword("bob", "secret"));
+        assertTrue(userService.validatePassword("bob", "changed"));
+        assertEquals(1, checks("cached"));
+    }
+
+    private double checks(String result) {
+        return meterRegistry.get("user.login.checks").tag("result", result).counter().count();
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret");
+        user.setStatus(UserStatus.ACTIVE);
+        return user;
+    }
+
+    /**
+     * 暴露共享的事务性 EntityManager，供测试直接修改实体
+     */
+    static class EntityManagerHolder {
+
+        @PersistenceContext
+        EntityManager entityManager;
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = UserRepository.class))
+    @Import(UserCredentialConfig.class)
+    static class JpaConfig {
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
+            em.setDataSource(dataSource);
+            em.setPackagesToScan("com.example.demo.entity");
+            em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            Properties properties = new Properties();
+            properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            properties.setProperty("hibernate.hbm2ddl.auto", "create");
+            properties.setProperty("hibernate.cache.use_second_level_cache", "false");
+            properties.setProperty("hibernate.physical_naming_strategy",
+                    "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+            em.setJpaProperties(properties);
+            return em;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        @Primary
+        DataSourceTransactionManager dataSourceTransactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        EntityManagerHolder entityManagerHolder() {
+            return new EntityManagerHolder();
+        }
+
+        @Bean
+        UserServiceImpl userService(UserRepository userRepository, UserCredentialCache userCredentialCache,
+                                    ObjectProvider<InfluxWritePipeline> influxWritePipeline) {
+            return new UserServiceImpl(userRepository, mock(UserKeyRegistry.class), userCredentialCache,
+                    influxWritePipeline);
+        }
+    }
+}
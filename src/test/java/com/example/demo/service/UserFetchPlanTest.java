@@ -0,0 +1,56 @@
+package com.example.demo.service;
+
+import com.example.demo.service.UserFetchPlan.Association;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserFetchPlan 测试类
+ */
+@DisplayName("用户抓取计划测试")
+class UserFetchPlanTest {
+
+    @Test
+    @DisplayName("测试解析逗号分隔的关联路径")
+    void testParse() {
+        // When
+        UserFetchPlan plan = UserFetchPlan.parse(" Orders, roles ,,userProfiles");
+
+        // Then - 按声明顺序排列，第一个关联随查询连接抓取
+        assertEquals(List.of(Association.ROLES, Association.PROFILES, Association.ORDERS),
+                List.copyOf(plan.associations()));
+        assertEquals(Association.ROLES, plan.joinFetched());
+    }
+
+    @Test
+    @DisplayName("测试角色权限隐含角色")
+    void testRolePermissionsImpliesRoles() {
+        // When
+        UserFetchPlan plan = UserFetchPlan.of(Association.ROLES, Association.ROLE_PERMISSIONS);
+
+        // Then
+        assertEquals(Set.of(Association.ROLE_PERMISSIONS), plan.associations());
+        assertEquals(plan, UserFetchPlan.parse("roles.permissions"));
+    }
+
+    @Test
+    @DisplayName("测试空计划不加载任何关联")
+    void testEmptyPlan() {
+        assertSame(UserFetchPlan.NONE, UserFetchPlan.parse(null));
+        assertSame(UserFetchPlan.NONE, UserFetchPlan.parse(" "));
+        assertNull(UserFetchPlan.NONE.joinFetched());
+    }
+
+    @Test
+    @DisplayName("测试未知关联被拒绝")
+    void testUnknownAssociation() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> UserFetchPlan.parse("roles,password"));
+        assertTrue(e.getMessage().contains("password"));
+    }
+}
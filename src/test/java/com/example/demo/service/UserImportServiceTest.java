@@ -0,0 +1,179 @@
+package com.example.demo.service;
+
+import com.example.demo.service.UserImportService.Format;
+import com.example.demo.service.UserImportService.ImportProgress;
+import com.example.demo.service.UserImportService.JobState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * UserImportService 测试类
+ * 在H2上执行真实的分块导入，断点表与用户数据同库
+ */
+@DisplayName("用户流式导入测试")
+class UserImportServiceTest {
+
+    private JdbcDataSource dataSource;
+
+    private LocalContainerEntityManagerFactoryBean factoryBean;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:import_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.example.demo.entity");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Properties properties = new Properties();
+        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.setProperty("hibernate.hbm2ddl.auto", "create");
+        properties.setProperty("hibernate.cache.use_second_level_cache", "false");
+        properties.setProperty("hibernate.physical_naming_strategy",
+                "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+        factoryBean.setJpaProperties(properties);
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+    }
+
+    @AfterEach
+    void tearDown() {
+        factoryBean.destroy();
+    }
+
+    @Test
+    @DisplayName("测试按块提交并同事务记录断点")
+    void testChunkedCommit() throws IOException {
+        // Given
+        UserImportService service = newService();
+
+        // When - 5行，每块2行
+        ImportProgress progress = service.importUsers(ndjson("u1", "u2", "u3", "u4", "u5"), Format.NDJSON, 2, null);
+
+        // Then
+        assertEquals(JobState.COMPLETED, progress.getState());
+        assertEquals(5, progress.getRowsCommitted());
+        assertEquals(3, progress.getChunksCommitted());
+        assertEquals(5, countUsers());
+        assertEquals(5L, checkpoint(progress.getJobId()));
+        assertEquals("COMPLETED", jdbc().queryForObject(
+                "SELECT state FROM user_import_jobs WHERE job_id = ?", String.class, progress.getJobId()));
+    }
+
+    @Test
+    @DisplayName("测试失败的块整体回滚，重启后按断点续传且不重复导入")
+    void testResumeAfterFailedChunk() throws IOException {
+        // Given - 第4行与第3行用户名重复，第二块（第3、4行）提交失败
+        ImportProgress failed = newService().importUsers(ndjson("u1", "u2", "u3", "u3", "u5"), Format.NDJSON, 2, null);
+        assertEquals(JobState.FAILED, failed.getState());
+        assertEquals(2, failed.getRowsCommitted());
+        assertEquals(2, countUsers());
+        assertEquals(2L, checkpoint(failed.getJobId()));
+
+        // When - 新实例模拟进程重启，内存中没有该任务，用修正后的数据续传
+        UserImportService restarted = newService();
+        ImportProgress resumed = restarted.importUsers(ndjson("u1", "u2", "u3", "u4", "u5"), Format.NDJSON, 2,
+                failed.getJobId());
+
+        // Then - 前两行被跳过
+        assertEquals(JobState.COMPLETED, resumed.getState());
+        assertEquals(1, resumed.getResumeCount());
+        assertEquals(5, resumed.getRowsCommitted());
+        assertEquals(3, resumed.getChunksCommitted());
+        assertEquals(List.of("u1", "u2", "u3", "u4", "u5"),
+                jdbc().queryForList("SELECT username FROM users ORDER BY username", String.class));
+        assertEquals(5L, checkpoint(failed.getJobId()));
+        assertThrows(IllegalStateException.class, () -> restarted.importUsers(
+                ndjson("u1"), Format.NDJSON, 2, failed.getJobId()));
+    }
+
+    @Test
+    @DisplayName("测试其他实例正在执行的任务不能续传，心跳过期后才能接管")
+    void testRunningJobOwnedElsewhere() throws IOException {
+        // Given - 一个失败的任务随后被其他实例接管执行
+        UserImportService service = newService();
+        ImportProgress failed = service.importUsers(ndjson("u1", "u2", "u2"), Format.NDJSON, 2, null);
+        String jobId = failed.getJobId();
+        jdbc().update("UPDATE user_import_jobs SET state = 'RUNNING', owner_id = 'other', heartbeat_at = ? "
+                + "WHERE job_id = ?", LocalDateTime.now(), jobId);
+
+        // When & Then - 不在本实例内存中也不视为中断
+        assertEquals(JobState.RUNNING, service.getProgress(jobId).orElseThrow().getState());
+        assertThrows(IllegalStateException.class, () -> service.importUsers(
+                ndjson("u1", "u2", "u3"), Format.NDJSON, 2, jobId));
+
+        // When - 执行者的心跳过期
+        jdbc().update("UPDATE user_import_jobs SET heartbeat_at = ? WHERE job_id = ?",
+                LocalDateTime.now().minus(UserImportService.STALE_AFTER).minusMinutes(1), jobId);
+
+        // Then
+        assertEquals(JobState.FAILED, service.getProgress(jobId).orElseThrow().getState());
+        ImportProgress resumed = service.importUsers(ndjson("u1", "u2", "u3"), Format.NDJSON, 2, jobId);
+        assertEquals(JobState.COMPLETED, resumed.getState());
+        assertEquals(3, countUsers());
+    }
+
+    @Test
+    @DisplayName("测试只有失败的任务可以续传")
+    void testOnlyFailedJobsCanResume() throws IOException {
+        // Given
+        UserImportService service = newService();
+        ImportProgress completed = service.importUsers(ndjson("u1"), Format.NDJSON, 2, null);
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> service.importUsers(
+                ndjson("u2"), Format.NDJSON, 2, completed.getJobId()));
+        assertThrows(IllegalArgumentException.class, () -> service.importUsers(
+                ndjson("u2"), Format.NDJSON, 2, "missing"));
+        assertEquals(1, countUsers());
+    }
+
+    private UserImportService newService() {
+        return new UserImportService(entityManagerFactory, new ObjectMapper(), mock(UserKeyRegistry.class));
+    }
+
+    private JdbcTemplate jdbc() {
+        return new JdbcTemplate(dataSource);
+    }
+
+    private int countUsers() {
+        return jdbc().queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+    }
+
+    private Long checkpoint(String jobId) {
+        return jdbc().queryForObject("SELECT rows_committed FROM user_import_jobs WHERE job_id = ?", Long.class, jobId);
+    }
+
+    private static InputStream ndjson(String... usernames) {
+        StringBuilder body = new StringBuilder();
+        for (String username : usernames) {
+            body.append("{\"username\":\"").append(username)
+                    .append("\",\"email\":\"").append(username).append("@example.com")
+                    .append("\",\"password\":\"secret\"}\n");
+        }
+        return new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserKeyRegistry 与 ConcurrentBloomFilter 测试类
+ */
+@DisplayName("用户名/邮箱存在性过滤测试")
+class UserKeyRegistryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("测试布隆过滤器无漏判且误判率接近配置值")
+    void testBloomFilterFalsePositiveRate() {
+        // Given
+        ConcurrentBloomFilter filter = new ConcurrentBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain("user" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertEquals(7, filter.hashCount());
+    }
+
+    @Test
+    @DisplayName("测试加载完成前全部查库，之后不存在的键不查库")
+    void testNegativesSkipDatabase() {
+        // Given
+        UserKeyRegistry registry = new UserKeyRegistry(new UserKeyFilterProperties(), null, meterRegistry);
+        Set<String> table = new HashSet<>(Set.of("alice", "bob"));
+        AtomicInteger queries = new AtomicInteger();
+        Predicate<String> database = key -> {
+            queries.incrementAndGet();
+            return table.contains(key);
+        };
+        table.forEach(username -> registry.register(username, username + "@example.com"));
+
+        // When & Then - 未就绪时直接查库
+        assertFalse(registry.usernameExists("carol", database));
+        assertEquals(1, queries.get());
+
+        registry.markReady(table.size());
+        assertFalse(registry.usernameExists("carol", database));
+        assertFalse(registry.usernameExists("dave", database));
+        assertEquals(1, queries.get());
+        assertEquals(2, meterRegistry.get("user.key_filter.checks")
+                .tag("key", "username").tag("result", "negative").counter().count());
+    }
+
+    @Test
+    @DisplayName("测试可能存在的键查库确认后缓存，提交删除后重新查库")
+    void testConfirmedKeysAreCachedAndEvicted() {
+        // Given
+        UserKeyRegistry registry = new UserKeyRegistry(new UserKeyFilterProperties(), null, meterRegistry);
+        Set<String> table = new HashSet<>(Set.of("alice@example.com"));
+        AtomicInteger queries = new AtomicInteger();
+        Predicate<String> database = key -> {
+            queries.incrementAndGet();
+            return table.contains(key);
+        };
+        registry.register("alice", "alice@example.com");
+        registry.markReady(1);
+
+        // When
+        boolean first = registry.emailExists("alice@example.com", database);
+        boolean second = registry.emailExists("alice@example.com", database);
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        assertEquals(1, queries.get());
+
+        // 删除提交后旧键被移出确认缓存，过滤器仍判定可能存在，需要查库
+        table.remove("alice@example.com");
+        registry.evict("alice", "alice@example.com");
+        assertFalse(registry.emailExists("alice@example.com", database));
+        assertEquals(2, queries.get());
+    }
+}
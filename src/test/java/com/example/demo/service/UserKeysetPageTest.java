@@ -0,0 +1,165 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.User;
+import com.example.demo.repository.AdvancedUserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 游标分页测试
+ * 在H2上按 (createdAt, id) 倒序翻页，createdAt 为空的行排在最后
+ */
+@DisplayName("游标分页测试")
+class UserKeysetPageTest {
+
+    private AnnotationConfigApplicationContext context;
+
+    private AdvancedHibernateService service;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:keyset_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean("dataSource", DataSource.class, () -> dataSource);
+        context.register(JpaConfig.class);
+        context.refresh();
+        service = context.getBean(AdvancedHibernateService.class);
+
+        // bob 与 carol 创建时间相同，dave 与 erin 的创建时间为空
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        insert(jdbc, 1L, "alice", "2024-01-01 00:00:00");
+        insert(jdbc, 2L, "bob", "2024-01-02 00:00:00");
+        insert(jdbc, 3L, "carol", "2024-01-02 00:00:00");
+        insert(jdbc, 4L, "dave", null);
+        insert(jdbc, 5L, "erin", null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    @DisplayName("测试逐页翻到创建时间为空的行且不重复不遗漏")
+    void testPagesThroughNullCreatedAt() {
+        // When
+        List<List<String>> pages = new ArrayList<>();
+        String cursor = null;
+        KeysetPage<User> page;
+        do {
+            page = service.findUsersByKeyset(null, null, null, cursor, 2, false);
+            pages.add(page.getContent().stream().map(User::getUsername).toList());
+            cursor = page.getNextCursor();
+        } while (page.isHasNext());
+
+        // Then
+        assertEquals(List.of(List.of("carol", "bob"), List.of("alice", "erin"), List.of("dave")), pages);
+    }
+
+    @Test
+    @DisplayName("测试无效的游标和页大小被拒绝，过大的页大小被截断")
+    void testInvalidRequests() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.findUsersByKeyset(null, null, null, "not-a-cursor", 2, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.findUsersByKeyset(null, null, null, null, 0, false));
+
+        KeysetPage<User> page = service.findUsersByKeyset(null, null, null, null, Integer.MAX_VALUE, true);
+        assertEquals(5, page.getContent().size());
+        assertFalse(page.isHasNext());
+        assertEquals(5L, page.getTotalElements());
+    }
+
+    private static void insert(JdbcTemplate jdbc, Long id, String username, String createdAt) {
+        jdbc.update("INSERT INTO users (id, username, email, password, status, created_at) "
+                        + "VALUES (?, ?, ?, 'secret', 'ACTIVE', ?)",
+                id, username, username + "@example.com", createdAt == null ? null : Timestamp.valueOf(createdAt));
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = AdvancedUserRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = AdvancedUserRepository.class))
+    static class JpaConfig {
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
+            em.setDataSource(dataSource);
+            em.setPackagesToScan("com.example.demo.entity");
+            em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            Properties properties = new Properties();
+            properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            properties.setProperty("hibernate.hbm2ddl.auto", "create");
+            properties.setProperty("hibernate.cache.use_second_level_cache", "false");
+            properties.setProperty("hibernate.physical_naming_strategy",
+                    "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+            em.setJpaProperties(properties);
+            return em;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        @Primary
+        DataSourceTransactionManager dataSourceTransactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+
+        @Bean
+        UserCredentialCache userCredentialCache() {
+            return mock(UserCredentialCache.class);
+        }
+
+        @Bean
+        PermissionIndex permissionIndex() {
+            return mock(PermissionIndex.class);
+        }
+
+        @Bean
+        AdvancedHibernateService advancedHibernateService() {
+            return new AdvancedHibernateService();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.demo.service;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.example.demo.entity.Order;
+import com.example.demo.entity.Role;
+import com.example.demo.entity.User;
+import com.example.demo.repository.AdvancedUserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 批量VIP授权测试
+ * 与应用配置相同地同时注册 @Primary 的 DataSourceTransactionManager 和名为 transactionManager 的JPA管理器，
+ * 在H2上执行真实的 INSERT ... SELECT 分块
+ */
+@DisplayName("批量VIP授权测试")
+class VipRoleAssignmentTest {
+
+    private DruidDataSource dataSource;
+
+    private AnnotationConfigApplicationContext context;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DruidDataSource();
+        dataSource.setUrl("jdbc:h2:mem:vip_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean("dataSource", DataSource.class, () -> dataSource);
+        context.register(JpaConfig.class);
+        context.refresh();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+        dataSource.close();
+    }
+
+    @Test
+    @DisplayName("测试分块授权只给已完成订单总额达标的用户，重复执行不重复授权")
+    void testAssignVipRolesInChunk() {
+        // Given - alice 已完成订单合计1200，bob 已完成500、待处理900
+        TransactionTemplate jpa = new TransactionTemplate(context.getBean("transactionManager", PlatformTransactionManager.class));
+        EntityManager entityManager = context.getBean(EntityManagerHolder.class).entityManager;
+        Long aliceId = jpa.execute(status -> {
+            Role vip = new Role();
+            vip.setName("VIP");
+            entityManager.persist(vip);
+            User alice = user(entityManager, "alice");
+            User bob = user(entityManager, "bob");
+            order(entityManager, alice, "A-1", "700", Order.OrderStatus.COMPLETED);
+            order(entityManager, alice, "A-2", "500", Order.OrderStatus.COMPLETED);
+            order(entityManager, bob, "B-1", "500", Order.OrderStatus.COMPLETED);
+            order(entityManager, bob, "B-2", "900", Order.OrderStatus.PENDING);
+            return alice.getId();
+        });
+        AdvancedHibernateService service = context.getBean(AdvancedHibernateService.class);
+
+        // When - 一个分块覆盖全部用户
+        long assigned = service.assignVipRolesInBatch(1000, 1);
+
+        // Then
+        assertEquals(1, assigned);
+        assertEquals(List.of(aliceId), new JdbcTemplate(dataSource).queryForList(
+                "SELECT ur.user_id FROM user_roles ur JOIN roles r ON r.id = ur.role_id WHERE r.name = 'VIP'",
+                Long.class));
+        assertEquals(0, service.assignVipRolesInBatch(1000, 1));
+    }
+
+    private static User user(EntityManager entityManager, String name) {
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        return user;
+    }
+
+    private static void order(EntityManager entityManager, User user, String number, String amount,
+                              Order.OrderStatus status) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderNumber(number);
+        order.setTotalAmount(new BigDecimal(amount));
+        order.setStatus(status);
+        entityManager.persist(order);
+    }
+
+    /**
+     * 暴露共享的事务性 EntityManager，供测试准备数据
+     */
+    static class EntityManagerHolder {
+
+        @PersistenceContext
+        EntityManager entityManager;
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = AdvancedUserRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                    classes = AdvancedUserRepository.class))
+    static class JpaConfig {
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
+            em.setDataSource(dataSource);
+            em.setPackagesToScan("com.example.demo.entity");
+            em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            Properties properties = new Properties();
+            properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            properties.setProperty("hibernate.hbm2ddl.auto", "create");
+            properties.setProperty("hibernate.cache.use_second_level_cache", "false");
+            properties.setProperty("hibernate.physical_naming_strategy",
+                    "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+            em.setJpaProperties(properties);
+            return em;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        @Primary
+        DataSourceTransactionManager dataSourceTransactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+
+        @Bean
+        UserCredentialCache userCredentialCache() {
+            return mock(UserCredentialCache.class);
+        }
+
+        @Bean
+        PermissionIndex permissionIndex() {
+            return mock(PermissionIndex.class);
+        }
+
+        @Bean
+        EntityManagerHolder entityManagerHolder() {
+            return new EntityManagerHolder();
+        }
+
+        @Bean
+        AdvancedHibernateService advancedHibernateService() {
+            return new AdvancedHibernateService();
+        }
+    }
+}
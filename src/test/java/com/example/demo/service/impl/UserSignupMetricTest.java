@@ -0,0 +1,82 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.entity.User;
+import com.example.demo.influxdb.InfluxWritePipeline;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.UserCredentialCache;
+import com.example.demo.service.UserKeyRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 注册事件指标测试
+ * user_signups 只在事务提交后写入，回滚的注册不计数
+ */
+@DisplayName("注册事件指标测试")
+class UserSignupMetricTest {
+
+    private InfluxWritePipeline pipeline;
+
+    private UserServiceImpl userService;
+
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = mock(InfluxWritePipeline.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("influxWritePipeline", pipeline));
+        userService = new UserServiceImpl(userRepository, mock(UserKeyRegistry.class), mock(UserCredentialCache.class),
+                beans.getBeanProvider(InfluxWritePipeline.class));
+
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:signup_" + System.nanoTime());
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    @DisplayName("测试事务提交后才写入注册事件")
+    void testSignupWrittenAfterCommit() {
+        // When
+        transaction.executeWithoutResult(status -> {
+            userService.createUser(user("alice"));
+            // Then - 提交前不写入
+            verify(pipeline, never()).write(any());
+        });
+
+        // Then
+        verify(pipeline).write(any());
+    }
+
+    @Test
+    @DisplayName("测试回滚的注册不写入注册事件")
+    void testRolledBackSignupNotWritten() {
+        // When
+        transaction.executeWithoutResult(status -> {
+            userService.createUser(user("bob"));
+            status.setRollbackOnly();
+        });
+
+        // Then
+        verify(pipeline, never()).write(any());
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret");
+        return user;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AdmissionControlFilter 测试类
+ */
+@DisplayName("请求准入控制测试")
+class AdmissionControlFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("测试名额用尽时返回503并在请求结束后释放")
+    void testRejectsWhenFull() throws Exception {
+        // Given
+        AdmissionControlFilter filter = new AdmissionControlFilter(1, settings(), meterRegistry);
+        MockHttpServletResponse nestedResponse = new MockHttpServletResponse();
+
+        // When - 第一个请求处理过程中再进来一个请求
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("/api/users"), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req,
+                                   HttpServletResponse resp) {
+                try {
+                    filter.doFilter(request("/api/users"), nestedResponse, new MockFilterChain());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }));
+
+        // Then
+        assertEquals(200, response.getStatus());
+        assertEquals(503, nestedResponse.getStatus());
+        assertEquals("1", nestedResponse.getHeader("Retry-After"));
+        assertEquals(1, meterRegistry.get("http.admission.rejected").counter().count());
+        assertEquals(0, meterRegistry.get("http.admission.active").gauge().value());
+
+        // 名额已释放，后续请求正常通过
+        MockHttpServletResponse next = new MockHttpServletResponse();
+        filter.doFilter(request("/api/users"), next, new MockFilterChain());
+        assertEquals(200, next.getStatus());
+    }
+
+    @Test
+    @DisplayName("测试排除路径不占用名额")
+    void testExcludedPathsBypass() throws Exception {
+        // Given
+        AdmissionControlFilter filter = new AdmissionControlFilter(1, settings(), meterRegistry);
+        AtomicInteger handled = new AtomicInteger();
+
+        // When
+        filter.doFilter(request("/api/users"), new MockHttpServletResponse(), new MockFilterChain(
+                new HttpServlet() {
+                    @Override
+                    protected void service(HttpServletRequest req,
+                                           HttpServletResponse resp) {
+                        try {
+                            MockHttpServletResponse health = new MockHttpServletResponse();
+                            filter.doFilter(request("/actuator/health"), health, new MockFilterChain());
+                            if (health.getStatus() == 200) {
+                                handled.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }));
+
+        // Then
+        assertEquals(1, handled.get());
+        assertEquals(0, meterRegistry.get("http.admission.rejected").counter().count());
+    }
+
+    private static WebConcurrencyProperties.Admission settings() {
+        WebConcurrencyProperties.Admission settings = new WebConcurrencyProperties.Admission();
+        settings.setAcquireTimeout(Duration.ofMillis(10));
+        return settings;
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        return new MockHttpServletRequest("GET", uri);
+    }
+}